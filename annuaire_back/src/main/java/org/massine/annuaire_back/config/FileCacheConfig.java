@@ -0,0 +1,35 @@
+package org.massine.annuaire_back.config;
+
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+@Configuration
+@ConfigurationProperties(prefix = "file-cache")
+@Validated
+public class FileCacheConfig {
+    private boolean enabled = true;
+
+    @NotBlank
+    private String directory = System.getProperty("java.io.tmpdir") + "/annuaire-cache";
+
+    /** Budget disque total du cache */
+    private DataSize maxSize = DataSize.ofGigabytes(1);
+
+    /** Les fichiers plus gros ne sont jamais mis en cache */
+    private DataSize maxFileSize = DataSize.ofMegabytes(100);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getDirectory() { return directory; }
+    public void setDirectory(String directory) { this.directory = directory; }
+
+    public DataSize getMaxSize() { return maxSize; }
+    public void setMaxSize(DataSize maxSize) { this.maxSize = maxSize; }
+
+    public DataSize getMaxFileSize() { return maxFileSize; }
+    public void setMaxFileSize(DataSize maxFileSize) { this.maxFileSize = maxFileSize; }
+}
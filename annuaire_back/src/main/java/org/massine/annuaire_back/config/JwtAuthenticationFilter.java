@@ -1,8 +1,8 @@
 package org.massine.annuaire_back.config;
 
+import org.massine.annuaire_back.dto.UserPrincipal;
 import org.massine.annuaire_back.services.JwtService;
 import org.massine.annuaire_back.services.UserService;
-import org.massine.annuaire_back.models.User;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -64,23 +64,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            final String email = jwtService.extractEmail(jwt);
+            // Signature et expiration vérifiées en une seule lecture du token
+            final JwtService.ValidatedToken token = jwtService.validate(jwt);
+            final String email = token.getEmail();
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                User user = userService.findByEmailSafe(email);
+                UserPrincipal principal = userService.loadPrincipal(email);
 
-                if (user != null && jwtService.isTokenValid(jwt, email)) {
+                if (principal != null) {
 
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             email,  
                             null,
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().toUpperCase()))
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole().toUpperCase()))
                     );
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    request.setAttribute(UserPrincipal.REQUEST_ATTRIBUTE, principal);
                 }
             }
 
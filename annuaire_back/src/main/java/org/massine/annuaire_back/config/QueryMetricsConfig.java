@@ -0,0 +1,30 @@
+package org.massine.annuaire_back.config;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Configuration
+@ConfigurationProperties(prefix = "query-metrics")
+@Validated
+public class QueryMetricsConfig {
+    private boolean enabled = true;
+
+    /** Nombre de requêtes SQL par requête HTTP au-delà duquel un avertissement est journalisé */
+    @Min(1)
+    private int budget = 25;
+
+    /** Requêtes SQL distinctes citées dans l'avertissement, les plus répétées d'abord */
+    @Min(1)
+    private int maxLoggedStatements = 10;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getBudget() { return budget; }
+    public void setBudget(int budget) { this.budget = budget; }
+
+    public int getMaxLoggedStatements() { return maxLoggedStatements; }
+    public void setMaxLoggedStatements(int maxLoggedStatements) { this.maxLoggedStatements = maxLoggedStatements; }
+}
@@ -0,0 +1,83 @@
+package org.massine.annuaire_back.config;
+
+import org.hibernate.Interceptor;
+import org.hibernate.SessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Branche le comptage SQL par requête HTTP dans Hibernate : chaque requête préparée passe par
+ * l'inspecteur, chaque exécution JDBC est chronométrée par l'écouteur de session et chaque
+ * entité chargée est vue par l'intercepteur. Tout est reporté dans {@link RequestQueryStats}.
+ */
+@Component
+public class QueryMetricsHibernateConfig implements HibernatePropertiesCustomizer {
+
+    private final QueryMetricsConfig queryMetricsConfig;
+
+    public QueryMetricsHibernateConfig(QueryMetricsConfig queryMetricsConfig) {
+        this.queryMetricsConfig = queryMetricsConfig;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (!queryMetricsConfig.isEnabled()) return;
+        Hooks hooks = new Hooks();
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, hooks);
+        hibernateProperties.put(AvailableSettings.INTERCEPTOR, hooks);
+        // Instancié par Hibernate pour chaque session
+        hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, Hooks.class.getName());
+    }
+
+    public static class Hooks implements StatementInspector, Interceptor, SessionEventListener {
+
+        @Override
+        public String inspect(String sql) {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) stats.statementPrepared(sql);
+            return sql;
+        }
+
+        @Override
+        public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) stats.entityLoaded();
+            return false;
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            executeStarted();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            executeEnded();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            executeStarted();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            executeEnded();
+        }
+
+        private static void executeStarted() {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) stats.executeStarted();
+        }
+
+        private static void executeEnded() {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) stats.executeEnded();
+        }
+    }
+}
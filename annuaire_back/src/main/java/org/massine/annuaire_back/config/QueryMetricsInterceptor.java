@@ -0,0 +1,97 @@
+package org.massine.annuaire_back.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relève, pour chaque requête HTTP traitée par un contrôleur, le nombre de requêtes SQL, le temps
+ * JDBC et le nombre d'entités chargées (sérialisation de la réponse comprise), publiés par
+ * méthode de contrôleur ({@code request.sql.*}, tag {@code handler}). Au-delà de
+ * {@code query-metrics.budget} requêtes SQL, un avertissement cite les requêtes les plus
+ * répétées : c'est la signature d'un N+1.
+ */
+@Component
+public class QueryMetricsInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetricsInterceptor.class);
+
+    private final QueryMetricsConfig queryMetricsConfig;
+    private final MeterRegistry meterRegistry;
+
+    public QueryMetricsInterceptor(QueryMetricsConfig queryMetricsConfig, MeterRegistry meterRegistry) {
+        this.queryMetricsConfig = queryMetricsConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (queryMetricsConfig.isEnabled()) {
+            registry.addInterceptor(this);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // La reprise d'une réponse asynchrone a déjà été comptée avec la requête initiale
+        if (handler instanceof HandlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+            RequestQueryStats.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        record(request, handler);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        record(request, handler);
+    }
+
+    private void record(HttpServletRequest request, Object handler) {
+        RequestQueryStats stats = RequestQueryStats.end();
+        if (stats == null || !(handler instanceof HandlerMethod method)) return;
+
+        String name = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        DistributionSummary.builder("request.sql.statements")
+                .description("Requêtes SQL par requête HTTP")
+                .tag("handler", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("request.sql.jdbc.time")
+                .description("Temps passé dans les exécutions JDBC par requête HTTP")
+                .tag("handler", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("request.sql.entity.loads")
+                .description("Entités chargées par requête HTTP")
+                .tag("handler", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.getEntityLoads());
+
+        if (stats.getStatements() > queryMetricsConfig.getBudget()) {
+            logger.warn("{} {} ({}) : {} requêtes SQL pour un budget de {}, JDBC {} ms, {} entités chargées\n  {}",
+                    request.getMethod(), request.getRequestURI(), name, stats.getStatements(),
+                    queryMetricsConfig.getBudget(), TimeUnit.NANOSECONDS.toMillis(stats.getJdbcNanos()),
+                    stats.getEntityLoads(),
+                    String.join("\n  ", stats.topStatements(queryMetricsConfig.getMaxLoggedStatements())));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.massine.annuaire_back.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compteurs SQL de la requête HTTP en cours (thread courant) : requêtes préparées, temps JDBC et
+ * entités chargées. Alimentés par {@link QueryMetricsHibernateConfig}, ouverts et relevés par
+ * {@link QueryMetricsInterceptor}. Hors requête HTTP (threads de fond), rien n'est compté.
+ */
+public final class RequestQueryStats {
+
+    /** Au-delà, les requêtes SQL distinctes ne sont plus retenues pour le journal */
+    private static final int MAX_DISTINCT_STATEMENTS = 100;
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long jdbcNanos;
+    private int entityLoads;
+    private long executeStart;
+    /** Texte SQL -> nombre d'exécutions : une même requête répétée signale un N+1 */
+    private final Map<String, Integer> distinct = new LinkedHashMap<>();
+
+    private RequestQueryStats() {}
+
+    static RequestQueryStats begin() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static RequestQueryStats end() {
+        RequestQueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    void statementPrepared(String sql) {
+        statements++;
+        if (distinct.containsKey(sql) || distinct.size() < MAX_DISTINCT_STATEMENTS) {
+            distinct.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void executeStarted() {
+        executeStart = System.nanoTime();
+    }
+
+    void executeEnded() {
+        if (executeStart != 0) {
+            jdbcNanos += System.nanoTime() - executeStart;
+            executeStart = 0;
+        }
+    }
+
+    void entityLoaded() {
+        entityLoads++;
+    }
+
+    public int getStatements() { return statements; }
+
+    public long getJdbcNanos() { return jdbcNanos; }
+
+    public int getEntityLoads() { return entityLoads; }
+
+    /**
+     * Requêtes SQL les plus répétées d'abord.
+     * @return au plus {@code limit} lignes « nombre x sql »
+     */
+    public List<String> topStatements(int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(distinct.entrySet());
+        entries.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : entries.subList(0, Math.min(limit, entries.size()))) {
+            lines.add(e.getValue() + " x " + e.getKey());
+        }
+        return lines;
+    }
+}
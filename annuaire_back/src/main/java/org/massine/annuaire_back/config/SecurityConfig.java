@@ -1,5 +1,6 @@
 package org.massine.annuaire_back.config;
 
+import org.massine.annuaire_back.dto.KeysetPage;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,7 +44,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/files/pool/*/public").permitAll()  // Fichiers d'un pool public
                         .requestMatchers("/api/files/download/**").permitAll()  // Téléchargement de fichiers publics
                         .requestMatchers("/api/files/preview/**").permitAll()  // Prévisualisation de fichiers publics
-                        .requestMatchers("/api/pool/stats/*").permitAll()
+                        .requestMatchers("/api/pool/stats/*", "/api/pool/stats/*/*").permitAll()  // Stats et pages de listes (pool public)
                         .requestMatchers("/api/pool/invitations/**").permitAll()
                         .anyRequest().authenticated()
                 )
@@ -68,6 +69,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of(KeysetPage.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -25,6 +25,24 @@ public class SftpConfig {
     @NotBlank
     private String baseDirectory;
 
+    @Min(0)
+    private int poolMinSessions = 1;
+
+    @Min(1)
+    private int poolMaxSessions = 5;
+
+    @Min(1)
+    private int poolChannelsPerSession = 2;
+
+    @Min(1)
+    private long poolBorrowTimeoutMs = 10000;
+
+    @Min(1000)
+    private long poolIdleTimeoutMs = 300000;
+
+    @Min(1000)
+    private long poolKeepaliveIntervalMs = 30000;
+
     public String getHost() { return host; }
     public void setHost(String host) { this.host = host; }
 
@@ -40,6 +58,24 @@ public class SftpConfig {
     public String getBaseDirectory() { return baseDirectory; }
     public void setBaseDirectory(String baseDirectory) { this.baseDirectory = baseDirectory; }
 
+    public int getPoolMinSessions() { return poolMinSessions; }
+    public void setPoolMinSessions(int poolMinSessions) { this.poolMinSessions = poolMinSessions; }
+
+    public int getPoolMaxSessions() { return poolMaxSessions; }
+    public void setPoolMaxSessions(int poolMaxSessions) { this.poolMaxSessions = poolMaxSessions; }
+
+    public int getPoolChannelsPerSession() { return poolChannelsPerSession; }
+    public void setPoolChannelsPerSession(int poolChannelsPerSession) { this.poolChannelsPerSession = poolChannelsPerSession; }
+
+    public long getPoolBorrowTimeoutMs() { return poolBorrowTimeoutMs; }
+    public void setPoolBorrowTimeoutMs(long poolBorrowTimeoutMs) { this.poolBorrowTimeoutMs = poolBorrowTimeoutMs; }
+
+    public long getPoolIdleTimeoutMs() { return poolIdleTimeoutMs; }
+    public void setPoolIdleTimeoutMs(long poolIdleTimeoutMs) { this.poolIdleTimeoutMs = poolIdleTimeoutMs; }
+
+    public long getPoolKeepaliveIntervalMs() { return poolKeepaliveIntervalMs; }
+    public void setPoolKeepaliveIntervalMs(long poolKeepaliveIntervalMs) { this.poolKeepaliveIntervalMs = poolKeepaliveIntervalMs; }
+
     /** Base dir sans trailing slash */
     public String normalizedBaseDir() {
         return baseDirectory != null && baseDirectory.endsWith("/")
@@ -0,0 +1,21 @@
+package org.massine.annuaire_back.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "storage")
+public class StorageConfig {
+
+    /** Stockage du contenu : {@code sftp}, {@code local} ou {@code memory} (tests de charge) */
+    private String backend = "sftp";
+
+    /** Racine du stockage {@code local} ; les chemins des fichiers y sont résolus */
+    private String localRoot = System.getProperty("java.io.tmpdir") + "/annuaire-storage";
+
+    public String getBackend() { return backend; }
+    public void setBackend(String backend) { this.backend = backend; }
+
+    public String getLocalRoot() { return localRoot; }
+    public void setLocalRoot(String localRoot) { this.localRoot = localRoot; }
+}
@@ -0,0 +1,60 @@
+package org.massine.annuaire_back.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "upload")
+public class UploadConfig {
+
+    /** Taille des morceaux d'un envoi fractionné (le dernier peut être plus court) */
+    private DataSize chunkSize = DataSize.ofMegabytes(8);
+
+    /** Un envoi fractionné sans activité pendant cette durée est abandonné */
+    private Duration sessionTtl = Duration.ofHours(24);
+
+    /** Taille maximale d'un fichier envoyé en flux (sans la limite multipart du conteneur) */
+    private DataSize streamMaxSize = DataSize.ofGigabytes(5);
+
+    /** Envois asynchrones : threads de transfert vers le SFTP */
+    private int asyncWorkers = 2;
+
+    /** Envois asynchrones : transferts en attente au-delà desquels l'envoi est refusé (503) */
+    private int asyncQueueCapacity = 100;
+
+    /** Envois asynchrones : tentatives de transfert avant de passer le fichier en FAILED */
+    private int asyncMaxAttempts = 3;
+
+    /** Envois asynchrones : délai avant une nouvelle tentative (multiplié par le rang de la tentative) */
+    private Duration asyncRetryDelay = Duration.ofSeconds(30);
+
+    /** Envois asynchrones : répertoire local où le contenu attend son transfert */
+    private String asyncSpoolDir = System.getProperty("java.io.tmpdir") + "/annuaire-upload-spool";
+
+    public DataSize getChunkSize() { return chunkSize; }
+    public void setChunkSize(DataSize chunkSize) { this.chunkSize = chunkSize; }
+
+    public Duration getSessionTtl() { return sessionTtl; }
+    public void setSessionTtl(Duration sessionTtl) { this.sessionTtl = sessionTtl; }
+
+    public DataSize getStreamMaxSize() { return streamMaxSize; }
+    public void setStreamMaxSize(DataSize streamMaxSize) { this.streamMaxSize = streamMaxSize; }
+
+    public int getAsyncWorkers() { return asyncWorkers; }
+    public void setAsyncWorkers(int asyncWorkers) { this.asyncWorkers = asyncWorkers; }
+
+    public int getAsyncQueueCapacity() { return asyncQueueCapacity; }
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) { this.asyncQueueCapacity = asyncQueueCapacity; }
+
+    public int getAsyncMaxAttempts() { return asyncMaxAttempts; }
+    public void setAsyncMaxAttempts(int asyncMaxAttempts) { this.asyncMaxAttempts = asyncMaxAttempts; }
+
+    public Duration getAsyncRetryDelay() { return asyncRetryDelay; }
+    public void setAsyncRetryDelay(Duration asyncRetryDelay) { this.asyncRetryDelay = asyncRetryDelay; }
+
+    public String getAsyncSpoolDir() { return asyncSpoolDir; }
+    public void setAsyncSpoolDir(String asyncSpoolDir) { this.asyncSpoolDir = asyncSpoolDir; }
+}
@@ -1,5 +1,7 @@
 package org.massine.annuaire_back.controllers;
 
+import org.massine.annuaire_back.dto.AccessSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
 import org.massine.annuaire_back.models.Access;
 import org.massine.annuaire_back.models.User;
 import org.massine.annuaire_back.services.AccessService;
@@ -30,12 +32,24 @@ public class AccessController {
             return null;
         }
         String email = (String) authentication.getPrincipal();
-        return userService.findByEmailSafe(email);
+        return userService.findAuthenticated(email);
+    }
+
+    /**
+     * Résumé d'un accès qui vient d'être créé ou modifié, relu en base : l'utilisateur et le pool
+     * du corps de la requête ne portent que leur id.
+     */
+    private AccessSummaryDTO summaryOf(Access saved) {
+        AccessSummaryDTO summary = accessService.getAccessSummary(saved.getId());
+        return summary != null ? summary : AccessSummaryDTO.of(saved);
     }
 
 
     @GetMapping("/")
-    public ResponseEntity<List<Access>> getAccess() {
+    public ResponseEntity<List<AccessSummaryDTO>> getAccess(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -50,15 +64,22 @@ public class AccessController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<Access> accesses = accessService.getAllAccess();
-        if (accesses.isEmpty()) {
+        KeysetPage<AccessSummaryDTO> page;
+        try {
+            page = accessService.getAccessSummaries("desc".equalsIgnoreCase(direction), after,
+                    KeysetPage.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (page.getItems().isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(accesses);
+        return page.toResponse();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Access> getAccessById(@PathVariable int id) {
+    public ResponseEntity<AccessSummaryDTO> getAccessById(@PathVariable int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -85,12 +106,12 @@ public class AccessController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.ok(access);
+        return ResponseEntity.ok(AccessSummaryDTO.of(access));
     }
 
 
     @PostMapping("/")
-    public ResponseEntity<Access> createAccess(@RequestBody Access access) {
+    public ResponseEntity<AccessSummaryDTO> createAccess(@RequestBody Access access) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -116,12 +137,12 @@ public class AccessController {
         }
 
         Access createdAccess = accessService.saveAccess(access);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdAccess);
+        return ResponseEntity.status(HttpStatus.CREATED).body(summaryOf(createdAccess));
     }
 
 
     @PutMapping("/{id}")
-    public ResponseEntity<Access> updateAccess(@PathVariable int id, @RequestBody Access access) {
+    public ResponseEntity<AccessSummaryDTO> updateAccess(@PathVariable int id, @RequestBody Access access) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -154,7 +175,7 @@ public class AccessController {
         }
 
         Access modifiedAccess = accessService.upadateAccess(id, access);
-        return ResponseEntity.ok(modifiedAccess);
+        return ResponseEntity.ok(summaryOf(modifiedAccess));
     }
 
 
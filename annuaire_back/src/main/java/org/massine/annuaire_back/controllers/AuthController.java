@@ -131,14 +131,12 @@ public class AuthController {
         }
 
         String email = (String) authentication.getPrincipal();
-        User user = userService.findByEmailSafe(email);
+        UserResponseDTO userResponse = userService.getUserSummaryByEmail(email);
 
-        if (user == null) {
+        if (userResponse == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        UserResponseDTO userResponse = new UserResponseDTO(user);
-
         return ResponseEntity.ok(userResponse);
     }
 }
@@ -1,14 +1,26 @@
 package org.massine.annuaire_back.controllers;
 
-import org.massine.annuaire_back.config.SftpConfig;
+import org.massine.annuaire_back.config.UploadConfig;
+import org.massine.annuaire_back.dto.FileSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.PoolDTO;
+import org.massine.annuaire_back.dto.UploadSessionRequest;
+import org.massine.annuaire_back.dto.UploadStatusDTO;
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.exceptions.ErrorResponse;
 import org.massine.annuaire_back.models.File;
+import org.massine.annuaire_back.models.FileStatus;
 import org.massine.annuaire_back.models.Pool;
+import org.massine.annuaire_back.models.UploadSession;
 import org.massine.annuaire_back.models.User;
 import org.massine.annuaire_back.services.AccessService;
+import org.massine.annuaire_back.services.AsyncUploadService;
+import org.massine.annuaire_back.services.ChunkedUploadService;
 import org.massine.annuaire_back.services.FileService;
+import org.massine.annuaire_back.services.MultipartStreamReader;
 import org.massine.annuaire_back.services.PoolService;
 import org.massine.annuaire_back.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
@@ -18,35 +30,46 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
-    
+
+    /** Taille maximale d'un champ texte dans un envoi en flux */
+    private static final int MAX_FIELD_SIZE = 64 * 1024;
 
     private final FileService fileService;
     private final PoolService poolService;
     private final UserService userService;
-    private final SftpConfig sftpConfig;
     private final AccessService accessService; 
+    private final ChunkedUploadService chunkedUploadService;
+    private final UploadConfig uploadConfig;
+    private final AsyncUploadService asyncUploadService;
 
     public FileController(
             FileService fileService,
             PoolService poolService,
             UserService userService,
-            SftpConfig sftpConfig,
-            AccessService accessService 
+            AccessService accessService,
+            ChunkedUploadService chunkedUploadService,
+            UploadConfig uploadConfig,
+            AsyncUploadService asyncUploadService
     ) {
         this.fileService = fileService;
         this.poolService = poolService;
         this.userService = userService;
-        this.sftpConfig = sftpConfig;
         this.accessService = accessService;
+        this.chunkedUploadService = chunkedUploadService;
+        this.uploadConfig = uploadConfig;
+        this.asyncUploadService = asyncUploadService;
     }
 
 
@@ -56,12 +79,16 @@ public class FileController {
             return null;
         }
         String email = (String) authentication.getPrincipal();
-        return userService.findByEmailSafe(email);
+        return userService.findAuthenticated(email);
     }
 
 
     @GetMapping
-    public ResponseEntity<List<File>> getAll() {
+    public ResponseEntity<List<FileSummaryDTO>> getAll(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", defaultValue = "createdAt") String sort,
+            @RequestParam(value = "direction", defaultValue = "desc") String direction) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -73,14 +100,15 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        List<Integer> accessiblePoolIds = accessService.getAccessiblePoolIds(currentUser.getId());
-
-        List<File> allFiles = fileService.getAllFiles();
-        List<File> accessibleFiles = allFiles.stream()
-                .filter(file -> file.getPool() != null && accessiblePoolIds.contains(file.getPool().getId()))
-                .collect(Collectors.toList());
+        KeysetPage<FileSummaryDTO> page;
+        try {
+            page = fileService.getAccessibleFiles(currentUser.getId(), sort,
+                    !"asc".equalsIgnoreCase(direction), after, KeysetPage.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        return ResponseEntity.ok(accessibleFiles);
+        return page.toResponse();
     }
 
     @GetMapping("/count")
@@ -89,7 +117,7 @@ public class FileController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<File> getById(@PathVariable int id) {
+    public ResponseEntity<FileSummaryDTO> getById(@PathVariable int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -100,13 +128,13 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        File file = fileService.getFileById(id);
+        FileSummaryDTO file = fileService.getFileSummary(id);
 
         if (file == null) {
             return ResponseEntity.notFound().build();
         }
 
-        if (!accessService.userCanAccessFile(currentUser.getId(), file)) {
+        if (!accessService.userHasAccessToPool(currentUser.getId(), file.getPool().getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -114,7 +142,7 @@ public class FileController {
     }
 
     @GetMapping("/uploader/{id}")
-    public ResponseEntity<User> getUploader(@PathVariable int id) {
+    public ResponseEntity<UserResponseDTO> getUploader(@PathVariable int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -135,7 +163,7 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        User uploader = fileService.findUploader(id);
+        UserResponseDTO uploader = fileService.findUploader(id);
         if (uploader == null) {
             return ResponseEntity.notFound().build();
         }
@@ -145,7 +173,7 @@ public class FileController {
 
 
     @GetMapping("/pool/{id}")
-    public ResponseEntity<Pool> getPool(@PathVariable int id) {
+    public ResponseEntity<PoolDTO> getPool(@PathVariable int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -171,11 +199,11 @@ public class FileController {
             return ResponseEntity.notFound().build();
         }
 
-        return ResponseEntity.ok(pool);
+        return ResponseEntity.ok(PoolDTO.of(pool));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<File> updateFile(
+    public ResponseEntity<FileSummaryDTO> updateFile(
             @PathVariable int id,
             @RequestParam(value = "file", required = false) MultipartFile newContent,
             @RequestParam(value = "name", required = false) String name,
@@ -207,17 +235,20 @@ public class FileController {
                     .body(null);
         }
 
+        LocalDate expirationDate;
         try {
-            if (newContent != null && !newContent.isEmpty()) {
-                String oldPath = existingFile.getPath();
-                int lastSlash = oldPath.lastIndexOf('/');
-                String remoteDir = (lastSlash > 0) ? oldPath.substring(0, lastSlash) : sftpConfig.normalizedBaseDir();
+            expirationDate = parseDate(expirationDateStr);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
 
+        File previousContent = null;
+        File updated;
+        try {
+            if (newContent != null && !newContent.isEmpty()) {
                 String safeName = fileService.sanitizeFilename(newContent.getOriginalFilename());
-                fileService.deleteRemote(oldPath);
-                fileService.uploadToDir(remoteDir, safeName, newContent.getInputStream());
+                previousContent = fileService.replaceContent(existingFile, newContent);
                 existingFile.setName(safeName);
-                existingFile.setPath(remoteDir + "/" + safeName);
             } else if (name != null && !name.isBlank()) {
                 existingFile.setName(name);
             }
@@ -225,22 +256,32 @@ public class FileController {
             if (description != null) {
                 existingFile.setDescription(description);
             }
-
-            if (expirationDateStr != null && !expirationDateStr.isBlank()) {
-                try {
-                    existingFile.setExpirationDate(LocalDate.parse(expirationDateStr));
-                } catch (DateTimeParseException e) {
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-                }
+            if (expirationDate != null) {
+                existingFile.setExpirationDate(expirationDate);
             }
 
-            File updated = fileService.updateFileEntity(id, existingFile);
-            return ResponseEntity.ok(updated);
-        } catch (DateTimeParseException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            updated = saveUpdate(id, existingFile, previousContent);
         } catch (Exception e) {
+            if (previousContent != null) releaseContentQuietly(existingFile);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
+        if (updated == null) {
+            return notFoundOrConflict(id);
+        }
+        return ResponseEntity.ok(FileSummaryDTO.of(updated));
+    }
+
+    /**
+     * Enregistre une modification ; si le contenu a été remplacé, l'ancien est libéré après
+     * validation et le nouveau l'est ici quand le fichier a disparu ou changé entre-temps.
+     */
+    private File saveUpdate(int id, File existingFile, File previousContent) {
+        if (previousContent == null) {
+            return fileService.updateFileEntity(id, existingFile);
+        }
+        File updated = fileService.updateFileEntity(id, existingFile, previousContent);
+        if (updated == null) releaseContentQuietly(existingFile);
+        return updated;
     }
 
 
@@ -270,24 +311,21 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        try {
-            fileService.deleteRemote(file.getPath());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        if (!fileService.deleteFile(file)) {
+            return notFoundOrConflict(id);
         }
-
-        fileService.deleteFileById(id);
         return ResponseEntity.noContent().build();
     }
 
 
     @PostMapping("/upload")
-    public ResponseEntity<File> uploadFile(
+    public ResponseEntity<FileSummaryDTO> uploadFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("poolId") int poolId,
             @RequestParam(value = "name", required = false) String name,
             @RequestParam(value = "description", required = false) String description,
-            @RequestParam(value = "expirationDate", required = false) String expirationDateStr) {
+            @RequestParam(value = "expirationDate", required = false) String expirationDateStr,
+            @RequestParam(value = "async", defaultValue = "false") boolean async) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication == null || !authentication.isAuthenticated()) {
@@ -313,22 +351,11 @@ public class FileController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            String remoteDir = fileService.buildRemoteDirFor(poolId, currentUser.getId());
             String safeName = fileService.sanitizeFilename(file.getOriginalFilename());
-            fileService.uploadToDir(remoteDir, safeName, file.getInputStream());
-
-            String displayName = (name != null && !name.trim().isEmpty()) ? name : safeName;
-
-            if (name != null && !name.trim().isEmpty()) {
-                String originalExtension = getFileExtension(file.getOriginalFilename());
-                if (originalExtension != null && !displayName.toLowerCase().endsWith(originalExtension.toLowerCase())) {
-                    displayName = displayName + originalExtension;
-                }
-            }
+            String displayName = displayName(name, file.getOriginalFilename(), safeName);
 
             File savedFile = new File();
             savedFile.setName(displayName);
-            savedFile.setPath(remoteDir + "/" + safeName);
             savedFile.setPool(pool);
             savedFile.setUserUploader(currentUser);
             savedFile.setCreatedAt(Instant.now());
@@ -342,18 +369,414 @@ public class FileController {
                 }
             }
 
-            File persisted = fileService.saveFile(savedFile);
-            return ResponseEntity.status(HttpStatus.CREATED).body(persisted);
+            if (async) {
+                // Transfert en arrière-plan : l'état est suivi sur /{id}/status
+                File pending = asyncUploadService.submit(file, savedFile);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .location(URI.create("/api/files/" + pending.getId() + "/status"))
+                        .body(summaryOf(pending));
+            }
+
+            // Contenu dédupliqué : déjà stocké, il n'est pas retransféré
+            fileService.storeContent(savedFile, file);
+            File persisted;
+            try {
+                persisted = fileService.saveFile(savedFile);
+            } catch (RuntimeException e) {
+                releaseContentQuietly(savedFile);
+                throw e;
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(summaryOf(persisted));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * État du contenu d'un fichier (PENDING, READY ou FAILED), pour suivre un envoi asynchrone.
+     */
+    @GetMapping("/{id}/status")
+    public ResponseEntity<Map<String, Object>> getFileStatus(@PathVariable int id) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        File file = fileService.getFileById(id);
+
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!accessService.userCanAccessFile(currentUser.getId(), file)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(Map.of("id", file.getId(), "status", file.getStatus()));
+    }
+
+
+    /**
+     * Variante de {@code /upload} lue en flux : le corps multipart est analysé au fil de l'eau et
+     * le fichier est copié directement vers le stockage, sans fichier temporaire ni limite
+     * {@code spring.servlet.multipart.max-file-size}. Le champ {@code poolId} doit précéder la
+     * partie fichier.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<FileSummaryDTO> uploadFileStream(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String boundary = MultipartStreamReader.boundaryOf(request.getContentType());
+        if (boundary == null) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        File savedFile = new File();
+        String originalFilename = null;
+        boolean stored = false;
+        try {
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary);
+            MultipartStreamReader.Part part;
+            while ((part = reader.next()) != null) {
+                if (!part.isFile()) {
+                    fields.put(part.name(), part.text(MAX_FIELD_SIZE));
+                    continue;
+                }
+                if (!"file".equals(part.name()) || stored) continue;
+
+                Integer poolId = parseInteger(fields.get("poolId"));
+                Pool pool = poolId == null ? null : poolService.getPoolById(poolId);
+                if (pool == null) {
+                    return ResponseEntity.badRequest().build();
+                }
+                if (!accessService.userCanModifyInPool(currentUser.getId(), poolId)) {
+                    return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                }
+
+                // Champs déjà reçus validés avant tout transfert vers le stockage
+                savedFile.setExpirationDate(parseDate(fields.get("expirationDate")));
+
+                originalFilename = part.filename();
+                savedFile.setPool(pool);
+                fileService.storeContent(savedFile, part.body(uploadConfig.getStreamMaxSize().toBytes()));
+                stored = true;
+            }
+        } catch (Exception e) {
+            if (stored) releaseContentQuietly(savedFile);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        if (!stored) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            String safeName = fileService.sanitizeFilename(originalFilename);
+            savedFile.setName(displayName(fields.get("name"), originalFilename, safeName));
+            savedFile.setUserUploader(currentUser);
+            savedFile.setCreatedAt(Instant.now());
+            savedFile.setDescription(fields.get("description"));
+
+            // Champ éventuellement reçu après la partie fichier
+            savedFile.setExpirationDate(parseDate(fields.get("expirationDate")));
         } catch (DateTimeParseException e) {
+            releaseContentQuietly(savedFile);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        File persisted;
+        try {
+            persisted = fileService.saveFile(savedFile);
+        } catch (Exception e) {
+            releaseContentQuietly(savedFile);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(summaryOf(persisted));
+    }
+
+    /**
+     * Variante de {@code PUT /{id}} lue en flux (voir {@link #uploadFileStream}).
+     */
+    @PutMapping("/{id}/stream")
+    public ResponseEntity<FileSummaryDTO> updateFileStream(@PathVariable int id, HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        File existingFile = fileService.getFileById(id);
+
+        if (existingFile == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!accessService.userCanModifyInPool(currentUser.getId(), existingFile.getPool().getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        String boundary = MultipartStreamReader.boundaryOf(request.getContentType());
+        if (boundary == null) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        File previousContent = null;
+        LocalDate expirationDate;
+        try {
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary);
+            MultipartStreamReader.Part part;
+            while ((part = reader.next()) != null) {
+                if (!part.isFile()) {
+                    fields.put(part.name(), part.text(MAX_FIELD_SIZE));
+                    continue;
+                }
+                if (!"file".equals(part.name()) || previousContent != null) continue;
+
+                // Champs déjà reçus validés avant tout transfert vers le stockage
+                parseDate(fields.get("expirationDate"));
+
+                String safeName = fileService.sanitizeFilename(part.filename());
+                previousContent = fileService.replaceContent(existingFile,
+                        part.body(uploadConfig.getStreamMaxSize().toBytes()));
+                existingFile.setName(safeName);
+            }
+            expirationDate = parseDate(fields.get("expirationDate"));
+        } catch (Exception e) {
+            if (previousContent != null) releaseContentQuietly(existingFile);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        File updated;
+        try {
+            String name = fields.get("name");
+            if (previousContent == null && name != null && !name.isBlank()) {
+                existingFile.setName(name);
+            }
+
+            if (fields.get("description") != null) {
+                existingFile.setDescription(fields.get("description"));
+            }
+            if (expirationDate != null) {
+                existingFile.setExpirationDate(expirationDate);
+            }
+
+            updated = saveUpdate(id, existingFile, previousContent);
+        } catch (Exception e) {
+            if (previousContent != null) releaseContentQuietly(existingFile);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+        if (updated == null) {
+            return notFoundOrConflict(id);
+        }
+        return ResponseEntity.ok(FileSummaryDTO.of(updated));
+    }
+
+    /**
+     * Résumé d'un fichier qui vient d'être créé, relu en base : l'utilisateur courant (principal
+     * mis en cache) ne porte pas tous les champs de l'auteur.
+     */
+    private FileSummaryDTO summaryOf(File created) {
+        FileSummaryDTO summary = fileService.getFileSummary(created.getId());
+        return summary != null ? summary : FileSummaryDTO.of(created);
+    }
+
+    /**
+     * Réponse quand une modification ou une suppression n'a rien écrit : le fichier a été supprimé
+     * entre-temps (404), ou son contenu remplacé par une requête concurrente (409).
+     */
+    private <T> ResponseEntity<T> notFoundOrConflict(int id) {
+        return fileService.existsById(id)
+                ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                : ResponseEntity.notFound().build();
+    }
+
+    private void releaseContentQuietly(File file) {
+        try {
+            fileService.releaseContent(file);
+        } catch (Exception ignore) {}
+    }
+
+    /**
+     * @return null si la valeur est absente ou vide
+     * @throws DateTimeParseException si elle n'est pas au format ISO (aaaa-mm-jj)
+     */
+    private static LocalDate parseDate(String value) {
+        return value == null || value.isBlank() ? null : LocalDate.parse(value.trim());
+    }
+
+    private static Integer parseInteger(String value) {
+        if (value == null) return null;
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ouvre un envoi fractionné (fichiers au-delà de la limite multipart). Les morceaux sont
+     * ensuite envoyés un par un, dans l'ordre, avec leur SHA-256 en hexadécimal dans l'en-tête
+     * {@code X-Chunk-Sha256}.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadStatusDTO> createUpload(@RequestBody UploadSessionRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (request.getPoolId() == null || request.getSize() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Pool pool = poolService.getPoolById(request.getPoolId());
+
+        if (pool == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (!accessService.userCanModifyInPool(currentUser.getId(), pool.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            LocalDate expirationDate = null;
+            if (request.getExpirationDate() != null && !request.getExpirationDate().isBlank()) {
+                expirationDate = LocalDate.parse(request.getExpirationDate());
+            }
+
+            String safeName = fileService.sanitizeFilename(request.getFilename());
+            String displayName = displayName(request.getName(), request.getFilename(), safeName);
+
+            UploadSession session = chunkedUploadService.create(pool.getId(), currentUser.getId(),
+                    request.getFilename(), request.getSize(), displayName, request.getDescription(), expirationDate);
+            return ResponseEntity.status(HttpStatus.CREATED).body(chunkedUploadService.status(session));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadStatusDTO> getUploadStatus(@PathVariable String uploadId) {
+        UploadSession session = ownedUpload(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            return ResponseEntity.ok(chunkedUploadService.status(session));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+    }
+
+    /**
+     * Reçoit un morceau (corps brut). 409 si un morceau précédent manque : le statut renvoyé
+     * par {@code GET /uploads/{id}} indique où reprendre.
+     */
+    @PutMapping("/uploads/{uploadId}/chunks/{index}")
+    public ResponseEntity<UploadStatusDTO> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            @RequestHeader(value = "X-Chunk-Sha256", required = false) String sha256,
+            HttpServletRequest request) {
+        UploadSession session = ownedUpload(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            return ResponseEntity.ok(chunkedUploadService.writeChunk(session, index, request.getInputStream(), sha256));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<FileSummaryDTO> completeUpload(@PathVariable String uploadId) {
+        UploadSession session = ownedUpload(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        User currentUser = getCurrentUser();
+        Pool pool = poolService.getPoolById(session.getPoolId());
+        if (pool == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!accessService.userCanModifyInPool(currentUser.getId(), pool.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            File persisted = chunkedUploadService.complete(session, pool, currentUser);
+            return ResponseEntity.status(HttpStatus.CREATED).body(summaryOf(persisted));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        UploadSession session = ownedUpload(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            chunkedUploadService.abort(session);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Envoi fractionné appartenant à l'utilisateur connecté, sinon null.
+     */
+    private UploadSession ownedUpload(String uploadId) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) return null;
+        UploadSession session = chunkedUploadService.get(uploadId);
+        if (session == null || !session.getUserId().equals(currentUser.getId())) return null;
+        return session;
+    }
 
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable int fileId) {
+    public ResponseEntity<Resource> downloadFile(@PathVariable int fileId,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -374,16 +797,28 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        if (file.getStatus() != FileStatus.READY) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
         try {
-            FileService.RemoteStream rs = fileService.getRemoteStream(file.getPath());
+            FileService.RemoteStream rs = fileService.getRemoteStream(file);
             HttpHeaders headers = new HttpHeaders();
             headers.setContentDisposition(ContentDisposition.attachment().filename(file.getName()).build());
-            if (rs.length() >= 0) headers.setContentLength(rs.length());
+            headers.setETag(rs.getETag());
+            headers.setLastModified(rs.lastModified());
+
+            Resource body = rs;
+            if (!rs.matchesIfRange(ifRange)) {
+                // Ressource modifiée depuis le If-Range : renvoyer le fichier complet en 200
+                body = rs.fullContent();
+                headers.setContentLength(rs.length());
+            }
 
             return ResponseEntity.ok()
                     .headers(headers)
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(rs);
+                    .body(body);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -391,7 +826,8 @@ public class FileController {
 
 
     @GetMapping("/preview/{id}")
-    public ResponseEntity<Resource> previewFile(@PathVariable int id) {
+    public ResponseEntity<Resource> previewFile(@PathVariable int id,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -412,8 +848,12 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        if (file.getStatus() != FileStatus.READY) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
         try {
-            FileService.RemoteStream rs = fileService.getRemoteStream(file.getPath());
+            FileService.RemoteStream rs = fileService.getRemoteStream(file);
             String fileName = file.getName().toLowerCase();
             MediaType contentType;
 
@@ -432,19 +872,39 @@ public class FileController {
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentDisposition(ContentDisposition.inline().filename(file.getName()).build());
-            headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Type, Content-Disposition");
+            headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Type, Content-Disposition, Content-Range, Accept-Ranges");
             headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
-            if (rs.length() >= 0) headers.setContentLength(rs.length());
+            headers.setETag(rs.getETag());
+            headers.setLastModified(rs.lastModified());
+
+            Resource body = rs;
+            if (!rs.matchesIfRange(ifRange)) {
+                // Ressource modifiée depuis le If-Range : renvoyer le fichier complet en 200
+                body = rs.fullContent();
+                headers.setContentLength(rs.length());
+            }
 
             return ResponseEntity.ok()
                     .headers(headers)
                     .contentType(contentType)
-                    .body(rs);
+                    .body(body);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Nom affiché : le nom choisi (complété par l'extension d'origine) ou le nom nettoyé.
+     */
+    private String displayName(String name, String originalFilename, String safeName) {
+        if (name == null || name.trim().isEmpty()) return safeName;
+        String originalExtension = getFileExtension(originalFilename);
+        if (originalExtension != null && !name.toLowerCase().endsWith(originalExtension.toLowerCase())) {
+            return name + originalExtension;
+        }
+        return name;
+    }
+
     private String getFileExtension(String filename) {
         if (filename == null) return null;
         int lastDotIndex = filename.lastIndexOf('.');
@@ -1,7 +1,12 @@
 package org.massine.annuaire_back.controllers;
 
 import org.massine.annuaire_back.dto.AcceptInvitationRequest;
+import org.massine.annuaire_back.dto.FileSummaryDTO;
 import org.massine.annuaire_back.dto.InvitationRequest;
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.PoolDTO;
+import org.massine.annuaire_back.dto.PoolDeletionStatusDTO;
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.Access;
 import org.massine.annuaire_back.models.File;
 import org.massine.annuaire_back.models.Pool;
@@ -9,26 +14,31 @@ import org.massine.annuaire_back.models.User;
 import org.massine.annuaire_back.repositories.AccessRepository;
 import org.massine.annuaire_back.repositories.UserRepository;
 import org.massine.annuaire_back.services.AccessService;
+import org.massine.annuaire_back.services.ArchiveService;
 import org.massine.annuaire_back.services.FileService;
+import org.massine.annuaire_back.services.PoolDeletionService;
 import org.massine.annuaire_back.services.PoolService;
+import org.massine.annuaire_back.services.PoolStatsService;
 import org.massine.annuaire_back.services.UserService;
 import org.massine.annuaire_back.services.JwtService;
 import org.massine.annuaire_back.services.CookieService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.security.Principal;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/pool/")
@@ -42,6 +52,9 @@ public class PoolController {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final CookieService cookieService;
+    private final PoolStatsService poolStatsService;
+    private final ArchiveService archiveService;
+    private final PoolDeletionService poolDeletionService;
 
 
     public PoolController(
@@ -53,7 +66,10 @@ public class PoolController {
             AccessRepository accessRepository,
             PasswordEncoder passwordEncoder,
             JwtService jwtService,
-            CookieService cookieService
+            CookieService cookieService,
+            PoolStatsService poolStatsService,
+            ArchiveService archiveService,
+            PoolDeletionService poolDeletionService
     ) {
         this.poolService = poolService;
         this.accessService = accessService;
@@ -64,6 +80,9 @@ public class PoolController {
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.cookieService = cookieService;
+        this.poolStatsService = poolStatsService;
+        this.archiveService = archiveService;
+        this.poolDeletionService = poolDeletionService;
     }
 
     /**
@@ -76,11 +95,11 @@ public class PoolController {
             return null;
         }
         String email = (String) authentication.getPrincipal();
-        return userService.findByEmailSafe(email);
+        return userService.findAuthenticated(email);
     }
 
     @GetMapping("/")
-    public ResponseEntity<List<Pool>> getPools() {
+    public ResponseEntity<List<PoolDTO>> getPools() {
         User currentUser = getCurrentUser();
         if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -91,7 +110,7 @@ public class PoolController {
         if(pools.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(pools);
+        return ResponseEntity.ok(pools.stream().map(PoolDTO::of).toList());
     }
 
     @GetMapping("/count")
@@ -101,7 +120,7 @@ public class PoolController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Pool> getPoolById(@PathVariable("id") int id) {
+    public ResponseEntity<PoolDTO> getPoolById(@PathVariable("id") int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -122,12 +141,12 @@ public class PoolController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.ok(pool);
+        return ResponseEntity.ok(PoolDTO.of(pool));
     }
 
 
     @PostMapping("/")
-    public ResponseEntity<Pool> createPool(@RequestBody Pool pool) {
+    public ResponseEntity<PoolDTO> createPool(@RequestBody Pool pool) {
         User currentUser = getCurrentUser();
         if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -143,10 +162,10 @@ public class PoolController {
         ownerAccess.setRole("owner");
         accessService.saveAccess(ownerAccess);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdPool);
+        return ResponseEntity.status(HttpStatus.CREATED).body(PoolDTO.of(createdPool));
     }
     @PutMapping("/{id}")
-    public ResponseEntity<Pool> updatePool(
+    public ResponseEntity<PoolDTO> updatePool(
             @PathVariable int id,
             @RequestBody Pool pool
     ) {
@@ -171,12 +190,16 @@ public class PoolController {
         }
 
         Pool updatedPool = poolService.updatePool(id, pool);
-        return ResponseEntity.ok(updatedPool);
+        return ResponseEntity.ok(PoolDTO.of(updatedPool));
     }
 
 
+    /**
+     * Supprime le pool tout de suite en base ; le contenu stocké est nettoyé en arrière-plan,
+     * avancement sur {@code /{id}/deletion}.
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePool(@PathVariable("id") int id) {
+    public ResponseEntity<PoolDeletionStatusDTO> deletePool(@PathVariable("id") int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -193,16 +216,40 @@ public class PoolController {
             return ResponseEntity.notFound().build();
         }
 
-        Access access = accessService.getUserAccessToPool(currentUser.getId(), id);
-        if (access == null || !"owner".equalsIgnoreCase(access.getRole())) {
+        if (!accessService.userIsOwner(currentUser.getId(), id)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        PoolDeletionStatusDTO status = poolService.deletePoolById(id, currentUser.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/pool/" + id + "/deletion"))
+                .body(status);
+    }
+
+    /**
+     * Avancement du nettoyage d'un pool supprimé, pour celui qui l'a supprimé.
+     */
+    @GetMapping("/{id}/deletion")
+    public ResponseEntity<PoolDeletionStatusDTO> getDeletionStatus(@PathVariable("id") int id) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        PoolDeletionStatusDTO status = poolDeletionService.status(id);
+
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!currentUser.getId().equals(poolDeletionService.requestedBy(id))) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        poolService.deletePoolById(id);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.ok(status);
     }
     @GetMapping("/users/{id}")
-    public ResponseEntity<List<User>> getUsersFromPool(@PathVariable int id){
+    public ResponseEntity<List<UserResponseDTO>> getUsersFromPool(@PathVariable int id){
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -217,7 +264,7 @@ public class PoolController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<User> users = accessService.getUsersFromPool(id);
+        List<UserResponseDTO> users = accessService.getPoolMembers(id);
         if(users.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
@@ -229,161 +276,96 @@ public class PoolController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Pool>> getAllPoolsByUserId(@PathVariable int userId) {
+    public ResponseEntity<List<PoolDTO>> getAllPoolsByUserId(@PathVariable int userId) {
         List<Pool> pools = poolService.getAllPoolsByUserId(userId);
         if (pools.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(pools);
+        return ResponseEntity.ok(pools.stream().map(PoolDTO::of).toList());
     }
     @GetMapping("/stats/{poolId}")
-    public ResponseEntity<Map<String, Object>> getPoolStats(@PathVariable int poolId) {
+    public ResponseEntity<Map<String, Object>> getPoolStats(
+            @PathVariable int poolId,
+            @RequestParam(value = "include", required = false) List<String> include,
+            @RequestParam(value = "limit", defaultValue = "50") Integer limit) {
         Pool pool = poolService.getPoolById(poolId);
 
         if (pool == null) {
             return ResponseEntity.notFound().build();
         }
 
-        boolean isPublicPool = pool.getPublicAccess() != null && pool.getPublicAccess();
-
-        if (!isPublicPool) {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
-
-            User currentUser = getCurrentUser();
-            if (currentUser == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
-
-            if (!accessService.userHasAccessToPool(currentUser.getId(), poolId)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
+        HttpStatus denied = checkStatsAccess(pool);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
         }
 
-        Map<String, Object> stats = new HashMap<>();
-
+        Set<String> lists = include == null ? Set.of() : new LinkedHashSet<>(include);
+        if (!PoolStatsService.LISTS.containsAll(lists)) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        // ==================== INFOS DE BASE ====================
-        stats.put("pool", pool);
+        try {
+            return ResponseEntity.ok(poolStatsService.getStats(pool, lists, KeysetPage.resolveLimit(limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
-        // ==================== STATS MEMBRES ====================
-        List<User> members = accessService.getUsersFromPool(poolId);
-        List<Access> accesses = accessService.getAccessesByPool(poolId);
+    /**
+     * Pages suivantes des listes dÃ©taillÃ©es des stats : members, inactiveMembers, accesses, files.
+     */
+    @GetMapping("/stats/{poolId}/{list}")
+    public ResponseEntity<? extends List<?>> getPoolStatsList(
+            @PathVariable int poolId,
+            @PathVariable String list,
+            @RequestParam(value = "limit", defaultValue = "50") Integer limit,
+            @RequestParam(value = "after", required = false) String after) {
+        Pool pool = poolService.getPoolById(poolId);
 
-        stats.put("membersCount", members.size());
-        stats.put("members", members);
-        stats.put("accesses", accesses);
+        if (pool == null) {
+            return ResponseEntity.notFound().build();
+        }
 
-        // RÃ©partition par rÃ´le dans la pool
-        Map<String, Long> roleDistribution = accesses.stream()
-                .filter(access -> access.getRole() != null)
-                .collect(Collectors.groupingBy(Access::getRole, Collectors.counting()));
-        stats.put("roleDistribution", roleDistribution);
+        HttpStatus denied = checkStatsAccess(pool);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
 
-        // RÃ©partition par rÃ´le global des users
-        Map<String, Long> userRoleDistribution = members.stream()
-                .filter(user -> user.getRole() != null)
-                .collect(Collectors.groupingBy(User::getRole, Collectors.counting()));
-        stats.put("userRoleDistribution", userRoleDistribution);
+        try {
+            return poolStatsService.getList(poolId, list, after, KeysetPage.resolveLimit(limit)).toResponse();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
-        // ==================== STATS FICHIERS ====================
-        List<File> files = fileService.findByPoolId(poolId);
+    private HttpStatus checkStatsAccess(Pool pool) {
+        if (pool.getPublicAccess() != null && pool.getPublicAccess()) {
+            return null;
+        }
 
-        stats.put("filesCount", files.size());
-        stats.put("files", files);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return HttpStatus.UNAUTHORIZED;
+        }
 
-        // Top uploaders
-        Map<User, Long> uploaderStats = files.stream()
-                .filter(file -> file.getUserUploader() != null)
-                .collect(Collectors.groupingBy(File::getUserUploader, Collectors.counting()));
-        List<Map.Entry<User, Long>> topUploaders = uploaderStats.entrySet().stream()
-                .sorted(Map.Entry.<User, Long>comparingByValue().reversed())
-                .limit(5)
-                .collect(Collectors.toList());
-        stats.put("topUploaders", topUploaders);
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return HttpStatus.UNAUTHORIZED;
+        }
 
-        // Fichiers par jour (7 derniers jours)
-        Map<String, Long> filesPerDay = files.stream()
-                .filter(file -> file.getCreatedAt() != null)
-                .collect(Collectors.groupingBy(
-                        file -> file.getCreatedAt().toString().substring(0, 10),
-                        Collectors.counting()
-                ));
-        stats.put("filesPerDay", filesPerDay);
-
-        // Dernier fichier uploadÃ©
-        Optional<File> lastFile = files.stream()
-                .filter(file -> file.getCreatedAt() != null)
-                .max(Comparator.comparing(File::getCreatedAt));
-        stats.put("lastFile", lastFile.orElse(null));
-
-        // ==================== STATS ACTIVITÃ‰ ====================
-        // Membres les plus actifs (par nombre de fichiers)
-        stats.put("mostActiveMembers", topUploaders);
-
-        // Membres inactifs (0 fichiers uploadÃ©s)
-        List<User> inactiveMembers = members.stream()
-                .filter(user -> files.stream().noneMatch(f -> f.getUserUploader() != null && f.getUserUploader().getId().equals(user.getId())))
-                .collect(Collectors.toList());
-        stats.put("inactiveMembers", inactiveMembers);
-        stats.put("inactiveMembersCount", inactiveMembers.size());
-
-        // ==================== STATS TEMPORELLES ====================
-        // Date de crÃ©ation de la pool
-        stats.put("poolCreatedAt", pool.getCreatedAt());
-
-        // Ã‚ge de la pool en jours
-        long poolAgeInDays = 0;
-        if (pool.getCreatedAt() != null) {
-            poolAgeInDays = ChronoUnit.DAYS.between(
-                    pool.getCreatedAt(),
-                    Instant.now()
-            );
-        }
-        stats.put("poolAgeInDays", poolAgeInDays);
-
-        // Nouveau membre le plus rÃ©cent
-        Optional<User> newestMember = members.stream()
-                .filter(user -> user.getCreatedAt() != null)
-                .max(Comparator.comparing(User::getCreatedAt));
-        stats.put("newestMember", newestMember.orElse(null));
-
-        // Membre le plus ancien
-        Optional<User> oldestMember = members.stream()
-                .filter(user -> user.getCreatedAt() != null)
-                .min(Comparator.comparing(User::getCreatedAt));
-        stats.put("oldestMember", oldestMember.orElse(null));
-
-        // ==================== STATS AVANCÃ‰ES ====================
-        // Moyenne de fichiers par membre
-        double avgFilesPerMember = members.isEmpty() ? 0 : (double) files.size() / members.size();
-        stats.put("avgFilesPerMember", Math.round(avgFilesPerMember * 100.0) / 100.0);
-
-        double activityRate = members.isEmpty() ? 0 :
-                ((double) (members.size() - inactiveMembers.size()) / members.size() * 100);
-        stats.put("activityRate", Math.round(activityRate * 100.0) / 100.0);
-
-        Map<String, Long> fileExtensions = files.stream()
-                .filter(f -> f.getName() != null)
-                .map(f -> {
-                    String name = f.getName();
-                    int lastDot = name.lastIndexOf('.');
-                    return lastDot > 0 ? name.substring(lastDot + 1).toLowerCase() : "sans extension";
-                })
-                .collect(Collectors.groupingBy(ext -> ext, Collectors.counting()));
-        stats.put("fileExtensions", fileExtensions);
-
-        if (pool.getCreatedBy() != null) {
-            User creator = userService.findById(pool.getCreatedBy());
-            stats.put("creator", creator);
-        }
-
-        return ResponseEntity.ok(stats);
+        if (!accessService.userHasAccessToPool(currentUser.getId(), pool.getId())) {
+            return HttpStatus.FORBIDDEN;
+        }
+        return null;
     }
+
     @GetMapping("/files/{poolId}")
-    public ResponseEntity<List<File>> getFilesOfPool(@PathVariable int poolId) {
+    public ResponseEntity<List<FileSummaryDTO>> getFilesOfPool(
+            @PathVariable int poolId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", defaultValue = "createdAt") String sort,
+            @RequestParam(value = "direction", defaultValue = "desc") String direction) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -404,11 +386,18 @@ public class PoolController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<File> files = fileService.findByPoolId(poolId);
-        if (files.isEmpty()) {
+        KeysetPage<FileSummaryDTO> page;
+        try {
+            page = fileService.getPoolFiles(poolId, sort, !"asc".equalsIgnoreCase(direction), after,
+                    KeysetPage.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (page.getItems().isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(files);
+        return page.toResponse();
     }
 
     @GetMapping("/files/count/{poolId}")
@@ -418,23 +407,85 @@ public class PoolController {
             return ResponseEntity.notFound().build();
         }
 
-        long count = fileService.findByPoolId(poolId).size();
-        return ResponseEntity.ok(count);
+        return ResponseEntity.ok(fileService.countByPoolId(poolId));
+    }
+
+    @GetMapping("/{id}/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(@PathVariable int id) {
+        return archive(id, null);
+    }
+
+    /**
+     * Archive d'une sélection de fichiers du pool ; le corps est la liste des ids.
+     */
+    @PostMapping("/{id}/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchiveSelection(
+            @PathVariable int id,
+            @RequestBody List<Integer> fileIds) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return archive(id, fileIds);
+    }
+
+    private ResponseEntity<StreamingResponseBody> archive(int poolId, List<Integer> fileIds) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Pool pool = poolService.getPoolById(poolId);
+
+        if (pool == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!accessService.userHasAccessToPool(currentUser.getId(), poolId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        List<File> files;
+        try {
+            files = fileService.getArchiveFiles(poolId, fileIds);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (files.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(pool.getName() + ".zip", StandardCharsets.UTF_8)
+                .build());
+        ArchiveService.Slot slot;
+        try {
+            slot = archiveService.reserve();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        StreamingResponseBody body = out -> archiveService.writeZip(slot, files, out);
+        return ResponseEntity.ok().headers(headers).body(body);
     }
 
 
 
     @PostMapping("/invitations/generate-token")
     public ResponseEntity<?> generateInvitationToken(
-            @RequestBody InvitationRequest request,
-            Principal principal
+            @RequestBody InvitationRequest request
     ) {
-        Optional<User> currentUserOpt = userRepository.findByEmail(principal.getName());
-        if (currentUserOpt.isEmpty()) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        User currentUser = currentUserOpt.get();
         Optional<Access> accessOpt = accessRepository.findByUserIdAndPoolId(currentUser.getId(), request.getPoolId().intValue());
 
         if (accessOpt.isEmpty() || (!accessOpt.get().getRole().equals("owner") && !accessOpt.get().getRole().equals("admin"))) {
@@ -567,7 +618,7 @@ public class PoolController {
                 access.setUser(user);
                 access.setPool(pool);
                 access.setRole("member");
-                accessRepository.save(access);
+                accessService.saveAccess(access);
 
                 String authToken = jwtService.generateToken(user.getId(), user.getEmail(), user.getRole());
                 String cookie = cookieService.createAuthCookie(authToken);
@@ -607,7 +658,7 @@ public class PoolController {
                 access.setUser(newUser);
                 access.setPool(pool);
                 access.setRole("member");
-                accessRepository.save(access);
+                accessService.saveAccess(access);
 
                 String authToken = jwtService.generateToken(newUser.getId(), newUser.getEmail(), newUser.getRole());
                 String cookie = cookieService.createAuthCookie(authToken);
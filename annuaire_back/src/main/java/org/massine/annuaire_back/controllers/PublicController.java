@@ -1,16 +1,19 @@
 package org.massine.annuaire_back.controllers;
 
+import org.massine.annuaire_back.dto.FileSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
 import org.massine.annuaire_back.models.File;
+import org.massine.annuaire_back.models.FileStatus;
 import org.massine.annuaire_back.models.Pool;
 import org.massine.annuaire_back.services.FileService;
 import org.massine.annuaire_back.services.PoolService;
+import org.massine.annuaire_back.services.PublicResponseCache;
 import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
@@ -19,43 +22,45 @@ public class PublicController {
 
     private final PoolService poolService;
     private final FileService fileService;
+    private final PublicResponseCache publicResponseCache;
 
-    public PublicController(PoolService poolService, FileService fileService) {
+    public PublicController(PoolService poolService, FileService fileService, PublicResponseCache publicResponseCache) {
         this.poolService = poolService;
         this.fileService = fileService;
+        this.publicResponseCache = publicResponseCache;
     }
 
     /**
      * RÃ©cupÃ©rer la liste des pools publics (pour les visiteurs non connectÃ©s)
      */
     @GetMapping("/pools/public")
-    public ResponseEntity<List<Map<String, Object>>> getPublicPools() {
-        List<Pool> publicPools = poolService.getAllPools().stream()
-                .filter(pool -> pool.getPublicAccess() != null && pool.getPublicAccess())
-                .collect(Collectors.toList());
-
-        List<Map<String, Object>> poolsWithFileCount = publicPools.stream()
-                .map(pool -> {
-                    Map<String, Object> poolData = Map.of(
-                            "id", pool.getId(),
-                            "name", pool.getName(),
-                            "description", pool.getDescription() != null ? pool.getDescription() : "",
-                            "createdAt", pool.getCreatedAt(),
-                            "fileCount", fileService.findByPoolId(pool.getId()).size(),
-                            "isPublic", true
-                    );
-                    return poolData;
-                })
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(poolsWithFileCount);
+    public ResponseEntity<?> getPublicPools(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = limit + "|" + after + "|" + sort + "|" + direction;
+        return publicResponseCache.catalog(key, ifNoneMatch, () -> {
+            try {
+                return poolService.getPublicPools(sort, "desc".equalsIgnoreCase(direction), after,
+                        KeysetPage.resolveLimit(limit)).toResponse();
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
     }
 
     /**
      * RÃ©cupÃ©rer les dÃ©tails d'un pool public spÃ©cifique
      */
     @GetMapping("/pools/{poolId}/public")
-    public ResponseEntity<?> getPublicPoolDetails(@PathVariable int poolId) {
+    public ResponseEntity<?> getPublicPoolDetails(@PathVariable int poolId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return publicResponseCache.pool(poolId, "details", ifNoneMatch, () -> publicPoolDetails(poolId));
+    }
+
+    private ResponseEntity<?> publicPoolDetails(int poolId) {
         Pool pool = poolService.getPoolById(poolId);
 
         if (pool == null) {
@@ -83,7 +88,19 @@ public class PublicController {
      * RÃ©cupÃ©rer les fichiers d'un pool public
      */
     @GetMapping("/files/pool/{poolId}/public")
-    public ResponseEntity<?> getPublicPoolFiles(@PathVariable int poolId) {
+    public ResponseEntity<?> getPublicPoolFiles(
+            @PathVariable int poolId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", defaultValue = "createdAt") String sort,
+            @RequestParam(value = "direction", defaultValue = "desc") String direction,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String key = "files|" + limit + "|" + after + "|" + sort + "|" + direction;
+        return publicResponseCache.pool(poolId, key, ifNoneMatch,
+                () -> publicPoolFiles(poolId, limit, after, sort, direction));
+    }
+
+    private ResponseEntity<?> publicPoolFiles(int poolId, Integer limit, String after, String sort, String direction) {
         Pool pool = poolService.getPoolById(poolId);
 
         if (pool == null) {
@@ -96,36 +113,24 @@ public class PublicController {
                     .body(Map.of("error", "Ce pool n'est pas public"));
         }
 
-        List<File> files = fileService.findByPoolId(poolId);
-
-        List<Map<String, Object>> filesData = files.stream()
-                .map(file -> {
-                    Map<String, Object> fileData = new java.util.HashMap<>();
-                    fileData.put("id", file.getId());
-                    fileData.put("name", file.getName());
-                    fileData.put("path", file.getPath());
-                    fileData.put("createdAt", file.getCreatedAt());
-                    fileData.put("pool", Map.of("id", file.getPool().getId()));
-                    if (file.getUserUploader() != null) {
-                        fileData.put("userUploader", Map.of(
-                                "id", file.getUserUploader().getId(),
-                                "firstName", file.getUserUploader().getFirstName(),
-                                "lastName", file.getUserUploader().getLastName(),
-                                "email", file.getUserUploader().getEmail()
-                        ));
-                    }
-                    return fileData;
-                })
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(filesData);
+        KeysetPage<FileSummaryDTO> page;
+        try {
+            page = fileService.getPoolFiles(poolId, sort, !"asc".equalsIgnoreCase(direction), after,
+                    KeysetPage.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        return page.toResponse();
     }
 
     /**
      * TÃ©lÃ©charger un fichier d'un pool public
      */
     @GetMapping("/files/download/{fileId}/public")
-    public ResponseEntity<Resource> downloadPublicFile(@PathVariable int fileId) {
+    public ResponseEntity<Resource> downloadPublicFile(@PathVariable int fileId,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
         File file = fileService.getFileById(fileId);
 
         if (file == null) {
@@ -139,20 +144,32 @@ public class PublicController {
                     .body(null);
         }
 
+        if (file.getStatus() != FileStatus.READY) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
         try {
-            FileService.RemoteStream rs = fileService.getRemoteStream(file.getPath());
+            FileService.RemoteStream rs = fileService.getRemoteStream(file);
             HttpHeaders headers = new HttpHeaders();
             String filename = file.getName();
             if (filename == null || filename.isBlank()) {
                 filename = "download";
             }
             headers.setContentDisposition(ContentDisposition.attachment().filename(filename).build());
-            if (rs.length() >= 0) headers.setContentLength(rs.length());
+            headers.setETag(rs.getETag());
+            headers.setLastModified(rs.lastModified());
+
+            Resource body = rs;
+            if (!rs.matchesIfRange(ifRange)) {
+                // Ressource modifiée depuis le If-Range : renvoyer le fichier complet en 200
+                body = rs.fullContent();
+                headers.setContentLength(rs.length());
+            }
 
             return ResponseEntity.ok()
                     .headers(headers)
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(rs);
+                    .body(body);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -162,7 +179,8 @@ public class PublicController {
      * PrÃ©visualiser un fichier d'un pool public
      */
     @GetMapping("/files/preview/{fileId}/public")
-    public ResponseEntity<Resource> previewPublicFile(@PathVariable int fileId) {
+    public ResponseEntity<Resource> previewPublicFile(@PathVariable int fileId,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
         File file = fileService.getFileById(fileId);
 
         if (file == null) {
@@ -176,8 +194,12 @@ public class PublicController {
                     .body(null);
         }
 
+        if (file.getStatus() != FileStatus.READY) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
         try {
-            FileService.RemoteStream rs = fileService.getRemoteStream(file.getPath());
+            FileService.RemoteStream rs = fileService.getRemoteStream(file);
             String fileName = file.getName();
             if (fileName == null || fileName.isBlank()) {
                 fileName = "preview";
@@ -200,14 +222,22 @@ public class PublicController {
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentDisposition(ContentDisposition.inline().filename(fileName).build());
-            headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Type, Content-Disposition");
+            headers.add(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Type, Content-Disposition, Content-Range, Accept-Ranges");
             headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
-            if (rs.length() >= 0) headers.setContentLength(rs.length());
+            headers.setETag(rs.getETag());
+            headers.setLastModified(rs.lastModified());
+
+            Resource body = rs;
+            if (!rs.matchesIfRange(ifRange)) {
+                // Ressource modifiée depuis le If-Range : renvoyer le fichier complet en 200
+                body = rs.fullContent();
+                headers.setContentLength(rs.length());
+            }
 
             return ResponseEntity.ok()
                     .headers(headers)
                     .contentType(contentType)
-                    .body(rs);
+                    .body(body);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -1,5 +1,8 @@
 package org.massine.annuaire_back.controllers;
 
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.PoolDTO;
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.Pool;
 import org.massine.annuaire_back.models.User;
 import org.massine.annuaire_back.services.AccessService;
@@ -30,13 +33,17 @@ public class UserController {
             return null;
         }
         String email = (String) authentication.getPrincipal();
-        return userService.findByEmailSafe(email);
+        return userService.findAuthenticated(email);
     }
 
 
     @CrossOrigin(origins = "http://localhost:5173")
     @GetMapping("/")
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<List<UserResponseDTO>> getAllUsers(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -51,14 +58,18 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<User> users = userService.getAllUser();
-
-        users.forEach(user -> user.setPassword(null));
+        KeysetPage<UserResponseDTO> page;
+        try {
+            page = userService.getUserSummaries(sort, "desc".equalsIgnoreCase(direction), after,
+                    KeysetPage.resolveLimit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        if (users.isEmpty()) {
+        if (page.getItems().isEmpty()) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         }
-        return ResponseEntity.ok(users);
+        return page.toResponse();
     }
 
 
@@ -84,7 +95,7 @@ public class UserController {
 
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable int id) {
+    public ResponseEntity<UserResponseDTO> getUserById(@PathVariable int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -95,7 +106,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        User user = userService.findById(id);
+        UserResponseDTO user = userService.getUserSummary(id);
 
         if (user == null) {
             return ResponseEntity.notFound().build();
@@ -109,13 +120,11 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        user.setPassword(null);
-
         return ResponseEntity.ok(user);
     }
 
     @PostMapping("/")
-    public ResponseEntity<User> createUser(@RequestBody User user) {
+    public ResponseEntity<UserResponseDTO> createUser(@RequestBody User user) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -132,13 +141,11 @@ public class UserController {
 
         User createdUser = userService.createUser(user);
 
-        createdUser.setPassword(null);
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+        return ResponseEntity.status(HttpStatus.CREATED).body(new UserResponseDTO(createdUser));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable int id, @RequestBody User user) {
+    public ResponseEntity<UserResponseDTO> updateUser(@PathVariable int id, @RequestBody User user) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -162,9 +169,7 @@ public class UserController {
 
         User modifiedUser = userService.updateUser(id, user);
 
-        modifiedUser.setPassword(null);
-
-        return ResponseEntity.ok(modifiedUser);
+        return ResponseEntity.ok(new UserResponseDTO(modifiedUser));
     }
 
 
@@ -194,7 +199,7 @@ public class UserController {
 
 
     @GetMapping("/email/{email}")
-    public ResponseEntity<User> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<UserResponseDTO> getUserByEmail(@PathVariable String email) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -205,7 +210,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        User user = userService.findByEmail(email);
+        UserResponseDTO user = userService.getUserSummaryByEmail(email);
 
         if (user == null) {
             return ResponseEntity.notFound().build();
@@ -218,14 +223,12 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        user.setPassword(null);
-
         return ResponseEntity.ok(user);
     }
 
 
     @GetMapping("/lastname/{lastname}")
-    public ResponseEntity<User> getUserByLastName(@PathVariable String lastname) {
+    public ResponseEntity<UserResponseDTO> getUserByLastName(@PathVariable String lastname) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -240,19 +243,17 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        User user = userService.findByLastName(lastname);
+        UserResponseDTO user = userService.getUserSummaryByLastName(lastname);
         if (user == null) {
             return ResponseEntity.notFound().build();
         }
 
-        user.setPassword(null);
-
         return ResponseEntity.ok(user);
     }
 
 
     @GetMapping("/firstname/{firstname}")
-    public ResponseEntity<User> getUserByFirstName(@PathVariable String firstname) {
+    public ResponseEntity<UserResponseDTO> getUserByFirstName(@PathVariable String firstname) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -267,19 +268,17 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        User user = userService.findByFirstName(firstname);
+        UserResponseDTO user = userService.getUserSummaryByFirstName(firstname);
         if (user == null) {
             return ResponseEntity.notFound().build();
         }
 
-        user.setPassword(null);
-
         return ResponseEntity.ok(user);
     }
 
 
     @GetMapping("/role/{role}")
-    public ResponseEntity<List<User>> getUserByRole(@PathVariable String role) {
+    public ResponseEntity<List<UserResponseDTO>> getUserByRole(@PathVariable String role) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -294,9 +293,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<User> users = userService.findByRole(role);
-
-        users.forEach(user -> user.setPassword(null));
+        List<UserResponseDTO> users = userService.getUserSummariesByRole(role);
 
         if (users.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -306,7 +303,7 @@ public class UserController {
 
 
     @GetMapping("/pools/{id}")
-    public ResponseEntity<List<Pool>> getPoolsFromUser(@PathVariable int id) {
+    public ResponseEntity<List<PoolDTO>> getPoolsFromUser(@PathVariable int id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -328,7 +325,7 @@ public class UserController {
         if (pools.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        return ResponseEntity.ok(pools);
+        return ResponseEntity.ok(pools.stream().map(PoolDTO::of).toList());
     }
 
 
@@ -357,7 +354,7 @@ public class UserController {
 
 
     @GetMapping("/me")
-    public ResponseEntity<User> getCurrentUser() {
+    public ResponseEntity<UserResponseDTO> getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -365,24 +362,20 @@ public class UserController {
         }
 
         String email = (String) authentication.getPrincipal();
-        User user = userService.findByEmail(email);
+        UserResponseDTO user = userService.getUserSummaryByEmail(email);
 
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        user.setPassword(null);
-
         return ResponseEntity.ok(user);
     }
 
     private boolean hasCommonPool(int userId1, int userId2) {
-        List<Pool> pools1 = accessService.getPoolsFromUser(userId1);
-        List<Pool> pools2 = accessService.getPoolsFromUser(userId2);
-
-        return pools1.stream()
-                .anyMatch(pool1 -> pools2.stream()
-                        .anyMatch(pool2 -> pool1.getId().equals(pool2.getId())));
+        for (int poolId : accessService.getAccessiblePoolIds(userId2)) {
+            if (accessService.userHasAccessToPool(userId1, poolId)) return true;
+        }
+        return false;
     }
 }
 
@@ -0,0 +1,71 @@
+package org.massine.annuaire_back.dto;
+
+import org.massine.annuaire_back.models.Access;
+import org.massine.annuaire_back.models.Pool;
+import org.massine.annuaire_back.models.User;
+
+/**
+ * Vue liste d'un accès, alimentée par une projection JPQL : l'utilisateur est réduit à son
+ * identité (jamais de mot de passe) et le pool à son id et son nom.
+ */
+public class AccessSummaryDTO {
+    private final Integer id;
+    private final String role;
+    private final UserRef user;
+    private final PoolRef pool;
+
+    public AccessSummaryDTO(Integer id, String role, Integer userId, String userFirstName, String userLastName,
+                            String userEmail, Integer poolId, String poolName) {
+        this.id = id;
+        this.role = role;
+        this.user = new UserRef(userId, userFirstName, userLastName, userEmail);
+        this.pool = new PoolRef(poolId, poolName);
+    }
+
+    /** Accès chargé avec son utilisateur et son pool (voir {@link Access#WITH_USER_AND_POOL}). */
+    public static AccessSummaryDTO of(Access access) {
+        User user = access.getUser();
+        Pool pool = access.getPool();
+        return new AccessSummaryDTO(access.getId(), access.getRole(),
+                user != null ? user.getId() : null, user != null ? user.getFirstName() : null,
+                user != null ? user.getLastName() : null, user != null ? user.getEmail() : null,
+                pool != null ? pool.getId() : null, pool != null ? pool.getName() : null);
+    }
+
+    public Integer getId() { return id; }
+    public String getRole() { return role; }
+    public UserRef getUser() { return user; }
+    public PoolRef getPool() { return pool; }
+
+    public static class UserRef {
+        private final Integer id;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+
+        public UserRef(Integer id, String firstName, String lastName, String email) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+        }
+
+        public Integer getId() { return id; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+        public String getEmail() { return email; }
+    }
+
+    public static class PoolRef {
+        private final Integer id;
+        private final String name;
+
+        public PoolRef(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Integer getId() { return id; }
+        public String getName() { return name; }
+    }
+}
@@ -0,0 +1,99 @@
+package org.massine.annuaire_back.dto;
+
+import org.massine.annuaire_back.models.File;
+import org.massine.annuaire_back.models.FileStatus;
+import org.massine.annuaire_back.models.Pool;
+import org.massine.annuaire_back.models.User;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Vue d'un fichier (listes et détail), alimentée directement par une projection JPQL
+ * (pas d'entité ni de proxy lazy à sérialiser).
+ */
+public class FileSummaryDTO {
+    private final Integer id;
+    private final String name;
+    private final String path;
+    private final String description;
+    private final Instant createdAt;
+    private final LocalDate expirationDate;
+    private final FileStatus status;
+    private final PoolRef pool;
+    private final UploaderRef userUploader;
+
+    public FileSummaryDTO(Integer id, String name, String path, String description, Instant createdAt,
+                          LocalDate expirationDate, FileStatus status, Integer poolId, String poolName,
+                          Integer uploaderId, String uploaderFirstName, String uploaderLastName, String uploaderEmail) {
+        this.id = id;
+        this.name = name;
+        this.path = path;
+        this.description = description;
+        this.createdAt = createdAt;
+        this.expirationDate = expirationDate;
+        this.status = status != null ? status : FileStatus.READY;
+        this.pool = new PoolRef(poolId, poolName);
+        this.userUploader = uploaderId != null
+                ? new UploaderRef(uploaderId, uploaderFirstName, uploaderLastName, uploaderEmail)
+                : null;
+    }
+
+    /**
+     * Fichier venant d'être écrit : le pool et l'uploader sont déjà en mémoire (ou chargés par
+     * leur proxy, une requête chacun).
+     */
+    public static FileSummaryDTO of(File file) {
+        Pool pool = file.getPool();
+        User uploader = file.getUserUploader();
+        return new FileSummaryDTO(file.getId(), file.getName(), file.getPath(), file.getDescription(),
+                file.getCreatedAt(), file.getExpirationDate(), file.getStatus(),
+                pool != null ? pool.getId() : null, pool != null ? pool.getName() : null,
+                uploader != null ? uploader.getId() : null,
+                uploader != null ? uploader.getFirstName() : null,
+                uploader != null ? uploader.getLastName() : null,
+                uploader != null ? uploader.getEmail() : null);
+    }
+
+    public Integer getId() { return id; }
+    public String getName() { return name; }
+    public String getPath() { return path; }
+    public String getDescription() { return description; }
+    public Instant getCreatedAt() { return createdAt; }
+    public LocalDate getExpirationDate() { return expirationDate; }
+    public FileStatus getStatus() { return status; }
+    public PoolRef getPool() { return pool; }
+    public UploaderRef getUserUploader() { return userUploader; }
+
+    public static class PoolRef {
+        private final Integer id;
+        private final String name;
+
+        public PoolRef(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Integer getId() { return id; }
+        public String getName() { return name; }
+    }
+
+    public static class UploaderRef {
+        private final Integer id;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+
+        public UploaderRef(Integer id, String firstName, String lastName, String email) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+        }
+
+        public Integer getId() { return id; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+        public String getEmail() { return email; }
+    }
+}
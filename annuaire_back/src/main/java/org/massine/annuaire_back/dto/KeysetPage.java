@@ -0,0 +1,48 @@
+package org.massine.annuaire_back.dto;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Page d'une pagination par clé (keyset). {@code nextCursor} est null sur la dernière page
+ * et est renvoyé au client dans l'en-tête {@link #NEXT_CURSOR_HEADER}.
+ */
+public class KeysetPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+
+    /**
+     * Réponse 200 portant les éléments de la page, et le curseur suivant en en-tête s'il existe.
+     */
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(items);
+    }
+
+    /**
+     * Taille de page effective : {@link #DEFAULT_LIMIT} si le client n'en demande pas,
+     * sinon bornée à {@link #MAX_LIMIT}. Une liste n'est donc jamais renvoyée en entier.
+     * @throws IllegalArgumentException si {@code limit < 1}
+     */
+    public static int resolveLimit(Integer limit) {
+        if (limit == null) return DEFAULT_LIMIT;
+        if (limit < 1) throw new IllegalArgumentException("limit doit être positif");
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
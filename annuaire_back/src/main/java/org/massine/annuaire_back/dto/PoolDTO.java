@@ -0,0 +1,39 @@
+package org.massine.annuaire_back.dto;
+
+import org.massine.annuaire_back.models.Pool;
+
+import java.time.Instant;
+
+/**
+ * Vue d'un pool renvoyée par l'API (détail et listes), mêmes champs que l'entité.
+ */
+public class PoolDTO {
+    private final Integer id;
+    private final String name;
+    private final String description;
+    private final Integer createdBy;
+    private final Instant createdAt;
+    private final Boolean publicAccess;
+
+    public PoolDTO(Integer id, String name, String description, Integer createdBy, Instant createdAt,
+                   Boolean publicAccess) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.createdBy = createdBy;
+        this.createdAt = createdAt;
+        this.publicAccess = publicAccess;
+    }
+
+    public static PoolDTO of(Pool pool) {
+        return new PoolDTO(pool.getId(), pool.getName(), pool.getDescription(), pool.getCreatedBy(),
+                pool.getCreatedAt(), pool.getPublicAccess());
+    }
+
+    public Integer getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public Integer getCreatedBy() { return createdBy; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Boolean getPublicAccess() { return publicAccess; }
+}
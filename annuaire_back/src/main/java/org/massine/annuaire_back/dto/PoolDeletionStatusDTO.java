@@ -0,0 +1,42 @@
+package org.massine.annuaire_back.dto;
+
+import java.time.Instant;
+
+/**
+ * Avancement du nettoyage d'un pool supprimé : références aux blobs rendues et fichiers
+ * supprimés sous {@code pool<id>/} sur le stockage.
+ */
+public class PoolDeletionStatusDTO {
+    private final int poolId;
+    private final String state;
+    private final int files;
+    private final int blobs;
+    private final int blobsReleased;
+    private final long remoteFilesDeleted;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final String error;
+
+    public PoolDeletionStatusDTO(int poolId, String state, int files, int blobs, int blobsReleased,
+                                 long remoteFilesDeleted, Instant startedAt, Instant finishedAt, String error) {
+        this.poolId = poolId;
+        this.state = state;
+        this.files = files;
+        this.blobs = blobs;
+        this.blobsReleased = blobsReleased;
+        this.remoteFilesDeleted = remoteFilesDeleted;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public int getPoolId() { return poolId; }
+    public String getState() { return state; }
+    public int getFiles() { return files; }
+    public int getBlobs() { return blobs; }
+    public int getBlobsReleased() { return blobsReleased; }
+    public long getRemoteFilesDeleted() { return remoteFilesDeleted; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,33 @@
+package org.massine.annuaire_back.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+/**
+ * Entrée du catalogue des pools publics, avec le nombre de fichiers calculé par la même requête.
+ */
+public class PublicPoolDTO {
+    private final Integer id;
+    private final String name;
+    private final String description;
+    private final Instant createdAt;
+    private final long fileCount;
+
+    public PublicPoolDTO(Integer id, String name, String description, Instant createdAt, long fileCount) {
+        this.id = id;
+        this.name = name;
+        this.description = description != null ? description : "";
+        this.createdAt = createdAt;
+        this.fileCount = fileCount;
+    }
+
+    public Integer getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public Instant getCreatedAt() { return createdAt; }
+    public long getFileCount() { return fileCount; }
+
+    @JsonProperty("isPublic")
+    public boolean isPublic() { return true; }
+}
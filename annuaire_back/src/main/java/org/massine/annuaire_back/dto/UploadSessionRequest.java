@@ -0,0 +1,31 @@
+package org.massine.annuaire_back.dto;
+
+/**
+ * Ouverture d'un envoi fractionné.
+ */
+public class UploadSessionRequest {
+    private Integer poolId;
+    private String filename;
+    private Long size;
+    private String name;
+    private String description;
+    private String expirationDate;
+
+    public Integer getPoolId() { return poolId; }
+    public void setPoolId(Integer poolId) { this.poolId = poolId; }
+
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getExpirationDate() { return expirationDate; }
+    public void setExpirationDate(String expirationDate) { this.expirationDate = expirationDate; }
+}
@@ -0,0 +1,31 @@
+package org.massine.annuaire_back.dto;
+
+/**
+ * État d'un envoi fractionné : les octets {@code [0, received)} sont reçus, le prochain morceau
+ * attendu est {@code nextChunk}.
+ */
+public class UploadStatusDTO {
+    private final String id;
+    private final long size;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final long received;
+    private final int nextChunk;
+
+    public UploadStatusDTO(String id, long size, int chunkSize, int chunkCount, long received, int nextChunk) {
+        this.id = id;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunkCount = chunkCount;
+        this.received = received;
+        this.nextChunk = nextChunk;
+    }
+
+    public String getId() { return id; }
+    public long getSize() { return size; }
+    public int getChunkSize() { return chunkSize; }
+    public int getChunkCount() { return chunkCount; }
+    public long getReceived() { return received; }
+    public int getNextChunk() { return nextChunk; }
+    public boolean isComplete() { return received == size; }
+}
@@ -0,0 +1,26 @@
+package org.massine.annuaire_back.dto;
+
+/**
+ * Nombre de fichiers déposés par un utilisateur dans un pool.
+ */
+public class UploaderStatDTO {
+    private final Integer id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final long fileCount;
+
+    public UploaderStatDTO(Integer id, String firstName, String lastName, String email, long fileCount) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.fileCount = fileCount;
+    }
+
+    public Integer getId() { return id; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getEmail() { return email; }
+    public long getFileCount() { return fileCount; }
+}
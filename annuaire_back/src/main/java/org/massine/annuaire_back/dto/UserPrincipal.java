@@ -0,0 +1,41 @@
+package org.massine.annuaire_back.dto;
+
+import org.massine.annuaire_back.models.User;
+
+/**
+ * Identité minimale de l'utilisateur authentifié (id, email, rôle),
+ * construite une fois par le filtre JWT et partagée via {@code PrincipalCache}.
+ */
+public class UserPrincipal {
+    public static final String REQUEST_ATTRIBUTE = UserPrincipal.class.getName();
+
+    private final Integer id;
+    private final String email;
+    private final String role;
+
+    public UserPrincipal(Integer id, String email, String role) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+    }
+
+    public UserPrincipal(User user) {
+        this(user.getId(), user.getEmail(), user.getRole());
+    }
+
+    public Integer getId() { return id; }
+    public String getEmail() { return email; }
+    public String getRole() { return role; }
+
+    /**
+     * User détaché portant uniquement id/email/rôle : suffisant pour les contrôles d'accès
+     * et comme référence de clé étrangère, sans requête sur la table users.
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setRole(role);
+        return user;
+    }
+}
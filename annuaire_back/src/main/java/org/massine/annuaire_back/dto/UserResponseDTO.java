@@ -16,6 +16,15 @@ public class UserResponseDTO {
     public UserResponseDTO() {
     }
 
+    public UserResponseDTO(Integer id, String firstName, String lastName, String email, String role, Instant createdAt) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.role = role;
+        this.createdAt = createdAt;
+    }
+
     public UserResponseDTO(User user) {
         if (user != null) {
             this.id = user.getId();
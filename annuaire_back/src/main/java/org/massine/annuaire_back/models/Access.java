@@ -4,18 +4,32 @@ import jakarta.persistence.*;
 import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "Access")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Access.WITH_USER, attributeNodes = @NamedAttributeNode("user")),
+        @NamedEntityGraph(name = Access.WITH_POOL, attributeNodes = @NamedAttributeNode("pool")),
+        @NamedEntityGraph(name = Access.WITH_USER_AND_POOL,
+                attributeNodes = {@NamedAttributeNode("user"), @NamedAttributeNode("pool")})
+})
+@Table(name = "Access",
+        indexes = {
+                @Index(name = "idx_access_user_pool", columnList = "user_id, pool_id")
+        })
 public class Access {
+    /** Plans de chargement : les associations sont paresseuses, chaque lecture joint ce qu'elle renvoie */
+    public static final String WITH_USER = "Access.withUser";
+    public static final String WITH_POOL = "Access.withPool";
+    public static final String WITH_USER_AND_POOL = "Access.withUserAndPool";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pool_id", referencedColumnName = "id", nullable = false)
     private Pool pool;
 
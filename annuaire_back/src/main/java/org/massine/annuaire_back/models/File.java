@@ -3,6 +3,7 @@ package org.massine.annuaire_back.models;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.Instant;
@@ -12,7 +13,9 @@ import java.time.LocalDate;
 @Table(name = "File",
         indexes = {
                 @Index(name = "idx_file_pool", columnList = "pool_id"),
-                @Index(name = "idx_file_uploader", columnList = "uploaded_by")
+                @Index(name = "idx_file_uploader", columnList = "uploaded_by"),
+                @Index(name = "idx_file_pool_created", columnList = "pool_id, created_at, id"),
+                @Index(name = "idx_file_pool_uploader", columnList = "pool_id, uploaded_by")
         })
 public class File {
     @Id
@@ -47,6 +50,15 @@ public class File {
     @Column(name = "expiration_date")
     private LocalDate expirationDate;
 
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'READY'")
+    @Column(name = "status", length = 16)
+    private FileStatus status = FileStatus.READY;
+
+    /** SHA-256 du contenu partagé ({@link FileBlob}) ; null pour un fichier stocké à son propre chemin */
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
 
@@ -70,4 +82,10 @@ public class File {
 
     public LocalDate getExpirationDate() { return expirationDate; }
     public void setExpirationDate(LocalDate expirationDate) { this.expirationDate = expirationDate; }
+
+    public FileStatus getStatus() { return status == null ? FileStatus.READY : status; }
+    public void setStatus(FileStatus status) { this.status = status; }
+
+    public String getBlobHash() { return blobHash; }
+    public void setBlobHash(String blobHash) { this.blobHash = blobHash; }
 }
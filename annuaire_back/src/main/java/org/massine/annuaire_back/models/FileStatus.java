@@ -0,0 +1,12 @@
+package org.massine.annuaire_back.models;
+
+/**
+ * État du contenu d'un fichier sur le stockage. Un envoi asynchrone crée le fichier en
+ * {@code PENDING} ; il passe à {@code READY} une fois transféré, ou {@code FAILED} après
+ * épuisement des tentatives.
+ */
+public enum FileStatus {
+    PENDING,
+    READY,
+    FAILED
+}
@@ -7,7 +7,10 @@ import org.hibernate.annotations.ColumnDefault;
 import java.time.Instant;
 
 @Entity
-@Table(name = "Pool")
+@Table(name = "Pool",
+        indexes = {
+                @Index(name = "idx_pool_public", columnList = "public_access, id")
+        })
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Pool {
     @Id
@@ -0,0 +1,98 @@
+package org.massine.annuaire_back.models;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Envoi fractionné en cours. Les morceaux reçus sont ajoutés à un fichier distant partiel ;
+ * sa taille fait foi pour savoir ce qui a déjà été reçu, l'envoi peut donc reprendre après
+ * une coupure ou un redémarrage.
+ */
+@Entity
+@Table(name = "UploadSession",
+        indexes = {
+                @Index(name = "idx_upload_session_updated", columnList = "updated_at")
+        })
+public class UploadSession {
+    @Id
+    @Column(name = "id", nullable = false, length = 36)
+    private String id;
+
+    @Column(name = "pool_id", nullable = false)
+    private Integer poolId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    /** Nom du fichier envoyé (nettoyé) */
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    /** Nom affiché du fichier créé à la fin de l'envoi */
+    @Column(name = "display_name", nullable = false)
+    private String displayName;
+
+    @Column(name = "remote_dir", nullable = false, length = 1024)
+    private String remoteDir;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    @Column(name = "description", length = 10000)
+    private String description;
+
+    @Column(name = "expiration_date")
+    private LocalDate expirationDate;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Integer getPoolId() { return poolId; }
+    public void setPoolId(Integer poolId) { this.poolId = poolId; }
+
+    public Integer getUserId() { return userId; }
+    public void setUserId(Integer userId) { this.userId = userId; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(String displayName) { this.displayName = displayName; }
+
+    public String getRemoteDir() { return remoteDir; }
+    public void setRemoteDir(String remoteDir) { this.remoteDir = remoteDir; }
+
+    public Long getTotalSize() { return totalSize; }
+    public void setTotalSize(Long totalSize) { this.totalSize = totalSize; }
+
+    public Integer getChunkSize() { return chunkSize; }
+    public void setChunkSize(Integer chunkSize) { this.chunkSize = chunkSize; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public LocalDate getExpirationDate() { return expirationDate; }
+    public void setExpirationDate(LocalDate expirationDate) { this.expirationDate = expirationDate; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    /** Chemin du fichier distant partiel */
+    public String partPath() { return remoteDir + "/.upload-" + id + ".part"; }
+
+    public int chunkCount() { return (int) ((totalSize + chunkSize - 1) / chunkSize); }
+}
@@ -1,24 +1,32 @@
 package org.massine.annuaire_back.repositories;
 
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.Access;
 import org.massine.annuaire_back.models.Pool;
 import org.massine.annuaire_back.models.User;
 import jakarta.annotation.Nonnull;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccessRepository extends JpaRepository<Access, Integer> {
+public interface AccessRepository extends JpaRepository<Access, Integer>, AccessRepositoryCustom {
     @Nonnull
+    @EntityGraph(Access.WITH_USER_AND_POOL)
     List<Access> findAll();
+    @EntityGraph(Access.WITH_USER_AND_POOL)
     Optional<Access> findById(int id);
-    @Query("SELECT u FROM User u JOIN Access a ON u.id = a.user.id WHERE a.pool.id = :pool_id")
-    List<User> getUsersFromPool(@Param("pool_id") int pool_id);
+    @Query("SELECT new org.massine.annuaire_back.dto.UserResponseDTO(u.id, u.firstName, u.lastName, u.email, u.role, u.createdAt) " +
+            "FROM Access a JOIN a.user u WHERE a.pool.id = :poolId")
+    List<UserResponseDTO> findMembers(@Param("poolId") int poolId);
     @Query("SELECT count(u) FROM User u JOIN Access a ON u.id = a.user.id WHERE a.pool.id = :pool_id")
     int getCountUsersFromPool(@Param("pool_id") int pool_id);
 
@@ -32,9 +40,40 @@ public interface AccessRepository extends JpaRepository<Access, Integer> {
     Optional<Access> findByUserIdAndPoolId(int userId, int poolId);
 
 
+    @EntityGraph(Access.WITH_POOL)
     List<Access> findByUserId(int userId);
 
 
+    @EntityGraph(Access.WITH_USER)
     List<Access> findByPoolId(int poolId);
+
+    /** Droits d'un utilisateur pour {@code AccessIndex} : [poolId, rôle] */
+    @Query("SELECT a.pool.id, a.role FROM Access a WHERE a.user.id = :userId")
+    List<Object[]> findPoolRolesByUserId(@Param("userId") int userId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Access a WHERE a.pool.id = :poolId")
+    int deleteAllInPool(@Param("poolId") int poolId);
+
+    /** Agrégats des statistiques matérialisées : [poolId, userId, rôle, nombre] */
+    @Query("SELECT a.pool.id, a.user.id, a.role, COUNT(a) FROM Access a WHERE a.pool.id = :poolId " +
+            "GROUP BY a.pool.id, a.user.id, a.role")
+    List<Object[]> aggregateForStats(@Param("poolId") int poolId);
+
+    @Query("SELECT a.pool.id, a.user.id, a.role, COUNT(a) FROM Access a GROUP BY a.pool.id, a.user.id, a.role")
+    List<Object[]> aggregateAllForStats();
+
+    @Query("SELECT u.role, COUNT(a) FROM Access a JOIN a.user u " +
+            "WHERE a.pool.id = :poolId AND u.role IS NOT NULL GROUP BY u.role")
+    List<Object[]> countUserRolesByPool(@Param("poolId") int poolId);
+
+    @Query("SELECT new org.massine.annuaire_back.dto.UserResponseDTO(u.id, u.firstName, u.lastName, u.email, u.role, u.createdAt) " +
+            "FROM Access a JOIN a.user u WHERE a.pool.id = :poolId AND u.createdAt IS NOT NULL ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserResponseDTO> findNewestMembers(@Param("poolId") int poolId, Limit limit);
+
+    @Query("SELECT new org.massine.annuaire_back.dto.UserResponseDTO(u.id, u.firstName, u.lastName, u.email, u.role, u.createdAt) " +
+            "FROM Access a JOIN a.user u WHERE a.pool.id = :poolId AND u.createdAt IS NOT NULL ORDER BY u.createdAt ASC, u.id ASC")
+    List<UserResponseDTO> findOldestMembers(@Param("poolId") int poolId, Limit limit);
 }
 
@@ -0,0 +1,27 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.AccessSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+
+public interface AccessRepositoryCustom {
+
+    /**
+     * Accès avec l'identité de l'utilisateur et le nom du pool, paginés par clé sur l'id.
+     */
+    KeysetPage<AccessSummaryDTO> findSummaries(boolean descending, String after, int limit);
+
+    /**
+     * Accès d'un pool, paginés par clé sur l'id.
+     */
+    KeysetPage<AccessSummaryDTO> findPoolSummaries(int poolId, String after, int limit);
+
+    /**
+     * Accès avec l'identité de l'utilisateur et le nom du pool, en une requête ; null s'il n'existe pas.
+     */
+    AccessSummaryDTO findSummaryById(int id);
+
+    /**
+     * Identifiants des pools accessibles à l'utilisateur, sans charger les entités.
+     */
+    int[] findPoolIdsByUserId(int userId);
+}
@@ -0,0 +1,58 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.AccessSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class AccessRepositoryCustomImpl implements AccessRepositoryCustom {
+
+    static final String SUMMARY_SELECT = "new org.massine.annuaire_back.dto.AccessSummaryDTO("
+            + "a.id, a.role, u.id, u.firstName, u.lastName, u.email, p.id, p.name)";
+
+    static final String SUMMARY_FROM = "Access a JOIN a.user u JOIN a.pool p";
+
+    static final KeysetQuery.SortKey BY_ID = new KeysetQuery.SortKey("a.id", Integer.class);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public KeysetPage<AccessSummaryDTO> findSummaries(boolean descending, String after, int limit) {
+        return summaries()
+                .page(BY_ID, "a.id", descending, after, limit,
+                        AccessSummaryDTO::getId, AccessSummaryDTO::getId);
+    }
+
+    @Override
+    public KeysetPage<AccessSummaryDTO> findPoolSummaries(int poolId, String after, int limit) {
+        return summaries()
+                .where("p.id = :poolId")
+                .param("poolId", poolId)
+                .page(BY_ID, "a.id", false, after, limit,
+                        AccessSummaryDTO::getId, AccessSummaryDTO::getId);
+    }
+
+    @Override
+    public AccessSummaryDTO findSummaryById(int id) {
+        return em.createQuery("SELECT " + SUMMARY_SELECT + " FROM " + SUMMARY_FROM + " WHERE a.id = :id",
+                        AccessSummaryDTO.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public int[] findPoolIdsByUserId(int userId) {
+        return em.createQuery("SELECT a.pool.id FROM Access a WHERE a.user.id = :userId", Integer.class)
+                .setParameter("userId", userId)
+                .getResultStream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private KeysetQuery<AccessSummaryDTO> summaries() {
+        return KeysetQuery.of(em, AccessSummaryDTO.class, SUMMARY_SELECT, SUMMARY_FROM);
+    }
+}
@@ -0,0 +1,42 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.models.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash")
+    int addReference(@Param("hash") String hash);
+
+    /**
+     * Enregistre un contenu qui vient d'être stocké avec une référence, ou ajoute la référence si
+     * une autre instance l'a enregistré entre-temps ({@code INSERT … ON DUPLICATE KEY UPDATE}
+     * sous MySQL) : le compteur n'est jamais écrasé.
+     */
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO FileBlob (hash, size, refCount, createdAt) VALUES (:hash, :size, 1, :createdAt) "
+            + "ON CONFLICT (hash) DO UPDATE SET refCount = refCount + 1")
+    int insertOrAddReference(@Param("hash") String hash, @Param("size") long size,
+                             @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - :count WHERE b.hash = :hash AND b.refCount > 0")
+    int removeReferences(@Param("hash") String hash, @Param("count") int count);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileBlob b WHERE b.hash = :hash AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
@@ -1,18 +1,21 @@
 package org.massine.annuaire_back.repositories;
 
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.File;
+import org.massine.annuaire_back.models.FileStatus;
 import org.massine.annuaire_back.models.Pool;
-import org.massine.annuaire_back.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FileRepository extends JpaRepository<File, Integer> {
+public interface FileRepository extends JpaRepository<File, Integer>, FileRepositoryCustom {
 
     @Override
     List<File> findAll();
@@ -26,8 +29,69 @@ public interface FileRepository extends JpaRepository<File, Integer> {
     @Query("SELECT f.path FROM File f WHERE f.id = :id")
     String findPath(@Param("id") int id);
 
-    @Query("SELECT u FROM User u JOIN File f ON u.id = f.userUploader.id WHERE f.id = :id")
-    User findUploader(@Param("id") int id);
+    @Query("SELECT new org.massine.annuaire_back.dto.UserResponseDTO(u.id, u.firstName, u.lastName, u.email, u.role, u.createdAt) " +
+            "FROM File f JOIN f.userUploader u WHERE f.id = :id")
+    UserResponseDTO findUploaderSummary(@Param("id") int id);
 
     List<File> findByPoolId(int poolId);
+
+    long countByPoolId(int poolId);
+
+    List<File> findByStatus(FileStatus status);
+
+    /** État effectif : les lignes antérieures à la colonne valent READY (voir File#getStatus). */
+    String STATUS = "COALESCE(f.status, org.massine.annuaire_back.models.FileStatus.READY)";
+
+    /**
+     * Suppression d'un fichier dont le contenu (chemin, état) est encore celui lu : 0 s'il a été
+     * supprimé ou son contenu remplacé entre-temps.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM File f WHERE f.id = :id AND f.path = :path AND " + STATUS + " = :status")
+    int deleteIfContent(@Param("id") int id, @Param("path") String path, @Param("status") FileStatus status);
+
+    /**
+     * Remplacement du contenu, seulement s'il est encore celui lu (chemin, état) : 0 si le fichier
+     * a été supprimé ou son contenu remplacé entre-temps.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE File f SET f.blobHash = :hash, f.path = :path, f.status = :status " +
+            "WHERE f.id = :id AND f.path = :previousPath AND " + STATUS + " = :previousStatus")
+    int swapContent(@Param("id") int id, @Param("hash") String hash, @Param("path") String path,
+                    @Param("status") FileStatus status, @Param("previousPath") String previousPath,
+                    @Param("previousStatus") FileStatus previousStatus);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM File f WHERE f.pool.id = :poolId")
+    int deleteAllInPool(@Param("poolId") int poolId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE File f SET f.status = :status WHERE f.id = :id")
+    int updateStatus(@Param("id") int id, @Param("status") FileStatus status);
+
+    /** Fin d'un transfert asynchrone : sans effet si le fichier a été supprimé ou son contenu remplacé entre-temps. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE File f SET f.status = org.massine.annuaire_back.models.FileStatus.READY " +
+            "WHERE f.id = :id AND f.blobHash = :hash AND f.status = org.massine.annuaire_back.models.FileStatus.PENDING")
+    int markReady(@Param("id") int id, @Param("hash") String hash);
+
+    /** Extension = ce qui suit le dernier point, sauf si le seul point ouvre le nom (comme lastIndexOf('.') > 0). */
+    String EXTENSION = "CASE WHEN f.name LIKE '_%.%' THEN lower(function('substring_index', f.name, '.', -1)) " +
+            "ELSE 'sans extension' END";
+
+    /** Agrégats des statistiques matérialisées : [poolId, uploaderId, jour, extension, nombre, max(createdAt)] */
+    @Query("SELECT f.pool.id, f.userUploader.id, extract(date from f.createdAt) AS day, " + EXTENSION + " AS ext, " +
+            "COUNT(f), MAX(f.createdAt) FROM File f WHERE f.pool.id = :poolId " +
+            "GROUP BY f.pool.id, f.userUploader.id, day, ext")
+    List<Object[]> aggregateForStats(@Param("poolId") int poolId);
+
+    @Query("SELECT f.pool.id, f.userUploader.id, extract(date from f.createdAt) AS day, " + EXTENSION + " AS ext, " +
+            "COUNT(f), MAX(f.createdAt) FROM File f " +
+            "GROUP BY f.pool.id, f.userUploader.id, day, ext")
+    List<Object[]> aggregateAllForStats();
 }
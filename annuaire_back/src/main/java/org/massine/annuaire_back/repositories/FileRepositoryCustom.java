@@ -0,0 +1,39 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.FileSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.models.File;
+
+import java.util.List;
+
+public interface FileRepositoryCustom {
+
+    /**
+     * Fichiers des pools auxquels l'utilisateur a accès, paginés par clé.
+     * @param sort createdAt, name ou id
+     */
+    KeysetPage<FileSummaryDTO> findAccessibleSummaries(int userId, String sort, boolean descending, String after, int limit);
+
+    /**
+     * Fichiers d'un pool, paginés par clé.
+     * @param sort createdAt, name ou id
+     */
+    KeysetPage<FileSummaryDTO> findPoolSummaries(int poolId, String sort, boolean descending, String after, int limit);
+
+    /**
+     * Détail d'un fichier avec son pool et son uploader, en une requête ; null s'il n'existe pas.
+     */
+    FileSummaryDTO findSummaryById(int id);
+
+    /**
+     * Contenu des fichiers d'un pool, sans charger les entités : [id, blobHash, état effectif].
+     * Les lignes restent verrouillées jusqu'à la fin de la transaction ; une suppression ou un
+     * remplacement de contenu concurrent attend, puis ne les trouve plus.
+     */
+    List<Object[]> lockContentByPoolId(int poolId);
+
+    /**
+     * Retire l'entité du contexte de persistance : ses modifications ne seront plus écrites.
+     */
+    void detach(File file);
+}
@@ -0,0 +1,90 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.FileSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.models.File;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public class FileRepositoryCustomImpl implements FileRepositoryCustom {
+
+    static final String SUMMARY_SELECT = "new org.massine.annuaire_back.dto.FileSummaryDTO("
+            + "f.id, f.name, f.path, f.description, f.createdAt, f.expirationDate, f.status, "
+            + "p.id, p.name, u.id, u.firstName, u.lastName, u.email)";
+
+    static final String SUMMARY_FROM = "File f JOIN f.pool p LEFT JOIN f.userUploader u";
+
+    static final Map<String, KeysetQuery.SortKey> SORT_KEYS = Map.of(
+            "createdAt", new KeysetQuery.SortKey("f.createdAt", Instant.class),
+            "name", new KeysetQuery.SortKey("f.name", String.class),
+            "id", new KeysetQuery.SortKey("f.id", Integer.class)
+    );
+
+    @PersistenceContext
+    private EntityManager em;
+
+    static KeysetQuery.SortKey sortKey(String sort) {
+        KeysetQuery.SortKey key = SORT_KEYS.get(sort);
+        if (key == null) throw new IllegalArgumentException("Tri non supporté : " + sort);
+        return key;
+    }
+
+    static Object sortValue(String sort, FileSummaryDTO f) {
+        return switch (sort) {
+            case "createdAt" -> f.getCreatedAt();
+            case "name" -> f.getName();
+            default -> f.getId();
+        };
+    }
+
+    @Override
+    public KeysetPage<FileSummaryDTO> findAccessibleSummaries(int userId, String sort, boolean descending, String after, int limit) {
+        return summaries()
+                .where("EXISTS (SELECT 1 FROM Access a WHERE a.pool.id = p.id AND a.user.id = :userId)")
+                .param("userId", userId)
+                .page(sortKey(sort), "f.id", descending, after, limit,
+                        f -> sortValue(sort, f), FileSummaryDTO::getId);
+    }
+
+    @Override
+    public KeysetPage<FileSummaryDTO> findPoolSummaries(int poolId, String sort, boolean descending, String after, int limit) {
+        return summaries()
+                .where("p.id = :poolId")
+                .param("poolId", poolId)
+                .page(sortKey(sort), "f.id", descending, after, limit,
+                        f -> sortValue(sort, f), FileSummaryDTO::getId);
+    }
+
+    @Override
+    public FileSummaryDTO findSummaryById(int id) {
+        return em.createQuery("SELECT " + SUMMARY_SELECT + " FROM " + SUMMARY_FROM + " WHERE f.id = :id",
+                        FileSummaryDTO.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public List<Object[]> lockContentByPoolId(int poolId) {
+        return em.createQuery("SELECT f.id, f.blobHash, " + FileRepository.STATUS
+                        + " FROM File f WHERE f.pool.id = :poolId", Object[].class)
+                .setParameter("poolId", poolId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    @Override
+    public void detach(File file) {
+        if (em.contains(file)) em.detach(file);
+    }
+
+    private KeysetQuery<FileSummaryDTO> summaries() {
+        return KeysetQuery.of(em, FileSummaryDTO.class, SUMMARY_SELECT, SUMMARY_FROM);
+    }
+}
@@ -0,0 +1,142 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.KeysetPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Construction d'une requête JPQL paginée par clé (keyset) : tri sur une colonne puis sur l'id,
+ * et reprise après le dernier couple (valeur, id) transmis dans un curseur opaque.
+ * Le coût d'une page ne dépend donc pas de sa position dans le résultat.
+ * Les valeurs NULL de la colonne de tri sont placées en fin de liste, quel que soit le sens.
+ */
+public final class KeysetQuery<T> {
+
+    private static final String NULL = "n";
+    private static final String VALUE = "v";
+
+    /** Colonne de tri autorisée : expression JPQL et type Java de la valeur. */
+    public record SortKey(String expression, Class<?> type) {}
+
+    private final EntityManager em;
+    private final Class<T> resultType;
+    private final String select;
+    private final String from;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> params = new LinkedHashMap<>();
+    private String groupBy;
+
+    private KeysetQuery(EntityManager em, Class<T> resultType, String select, String from) {
+        this.em = em;
+        this.resultType = resultType;
+        this.select = select;
+        this.from = from;
+    }
+
+    public static <T> KeysetQuery<T> of(EntityManager em, Class<T> resultType, String select, String from) {
+        return new KeysetQuery<>(em, resultType, select, from);
+    }
+
+    public KeysetQuery<T> where(String condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    /**
+     * Regroupement éventuel ; les colonnes de tri doivent en faire partie, la condition de
+     * reprise s'applique alors avant le regroupement.
+     */
+    public KeysetQuery<T> groupBy(String expressions) {
+        this.groupBy = expressions;
+        return this;
+    }
+
+    public KeysetQuery<T> param(String name, Object value) {
+        params.put(name, value);
+        return this;
+    }
+
+    /**
+     * @param limit nombre maximal d'éléments ; {@code <= 0} renvoie tout le résultat sans curseur
+     * @throws IllegalArgumentException si le curseur est illisible
+     */
+    public KeysetPage<T> page(SortKey sort, String idExpression, boolean descending, String after, int limit,
+                              Function<T, Object> sortValueOf, Function<T, Integer> idOf) {
+        List<String> where = new ArrayList<>(conditions);
+        Map<String, Object> values = new LinkedHashMap<>(params);
+        String op = descending ? "<" : ">";
+
+        if (after != null && !after.isBlank()) {
+            Object[] cursor = decode(after, sort.type());
+            String col = sort.expression();
+            if (col.equals(idExpression)) {
+                where.add(idExpression + " " + op + " :keysetId");
+            } else if (cursor[0] == null) {
+                // Déjà dans la queue des NULL : seul l'id départage
+                where.add("(" + col + " IS NULL AND " + idExpression + " " + op + " :keysetId)");
+            } else {
+                where.add("(" + col + " " + op + " :keysetValue OR (" + col + " = :keysetValue AND "
+                        + idExpression + " " + op + " :keysetId) OR " + col + " IS NULL)");
+                values.put("keysetValue", cursor[0]);
+            }
+            values.put("keysetId", cursor[1]);
+        }
+
+        String dir = descending ? " DESC" : " ASC";
+        StringBuilder jpql = new StringBuilder("SELECT ").append(select).append(" FROM ").append(from);
+        if (!where.isEmpty()) jpql.append(" WHERE ").append(String.join(" AND ", where));
+        if (groupBy != null) jpql.append(" GROUP BY ").append(groupBy);
+        jpql.append(" ORDER BY ").append(sort.expression()).append(dir);
+        if (!sort.expression().equals(idExpression)) {
+            jpql.append(" NULLS LAST, ").append(idExpression).append(dir);
+        }
+
+        TypedQuery<T> query = em.createQuery(jpql.toString(), resultType);
+        values.forEach(query::setParameter);
+        if (limit > 0) query.setMaxResults(limit + 1);
+
+        List<T> rows = query.getResultList();
+        if (limit <= 0 || rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        T last = items.get(items.size() - 1);
+        return new KeysetPage<>(items, encode(sortValueOf.apply(last), idOf.apply(last)));
+    }
+
+    /** Valeur préfixée par {@link #VALUE}, ou {@link #NULL} seul : une chaîne vide reste distincte de NULL. */
+    static String encode(Object value, Integer id) {
+        String raw = (value == null ? NULL : VALUE + value) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Object[] decode(String cursor, Class<?> type) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            String value = raw.substring(0, sep);
+            Integer id = Integer.valueOf(raw.substring(sep + 1));
+            if (value.equals(NULL)) return new Object[]{null, id};
+            if (!value.startsWith(VALUE)) throw new IllegalArgumentException(value);
+            value = value.substring(VALUE.length());
+            Object typed;
+            if (type == Instant.class) typed = Instant.parse(value);
+            else if (type == LocalDate.class) typed = LocalDate.parse(value);
+            else if (type == Integer.class) typed = Integer.valueOf(value);
+            else typed = value;
+            return new Object[]{typed, id};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
+        }
+    }
+}
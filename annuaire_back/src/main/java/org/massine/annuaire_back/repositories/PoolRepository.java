@@ -8,7 +8,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface PoolRepository extends JpaRepository<Pool, Integer> {
+public interface PoolRepository extends JpaRepository<Pool, Integer>, PoolRepositoryCustom {
     @Nonnull
     List<Pool> findAll();
     Pool findById(int id);
@@ -0,0 +1,13 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.PublicPoolDTO;
+
+public interface PoolRepositoryCustom {
+
+    /**
+     * Pools publics et leur nombre de fichiers (une seule requête groupée), paginés par clé.
+     * @param sort id, name ou createdAt
+     */
+    KeysetPage<PublicPoolDTO> findPublicCatalog(String sort, boolean descending, String after, int limit);
+}
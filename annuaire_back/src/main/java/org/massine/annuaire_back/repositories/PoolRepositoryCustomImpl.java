@@ -0,0 +1,43 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.PublicPoolDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.Instant;
+import java.util.Map;
+
+public class PoolRepositoryCustomImpl implements PoolRepositoryCustom {
+
+    static final String CATALOG_SELECT = "new org.massine.annuaire_back.dto.PublicPoolDTO("
+            + "p.id, p.name, p.description, p.createdAt, COUNT(f.id))";
+
+    static final Map<String, KeysetQuery.SortKey> SORT_KEYS = Map.of(
+            "id", new KeysetQuery.SortKey("p.id", Integer.class),
+            "name", new KeysetQuery.SortKey("p.name", String.class),
+            "createdAt", new KeysetQuery.SortKey("p.createdAt", Instant.class)
+    );
+
+    @PersistenceContext
+    private EntityManager em;
+
+    static Object sortValue(String sort, PublicPoolDTO p) {
+        return switch (sort) {
+            case "name" -> p.getName();
+            case "createdAt" -> p.getCreatedAt();
+            default -> p.getId();
+        };
+    }
+
+    @Override
+    public KeysetPage<PublicPoolDTO> findPublicCatalog(String sort, boolean descending, String after, int limit) {
+        KeysetQuery.SortKey key = SORT_KEYS.get(sort);
+        if (key == null) throw new IllegalArgumentException("Tri non supporté : " + sort);
+        return KeysetQuery.of(em, PublicPoolDTO.class, CATALOG_SELECT, "Pool p LEFT JOIN File f ON f.pool.id = p.id")
+                .where("p.publicAccess = true")
+                .groupBy("p.id, p.name, p.description, p.createdAt")
+                .page(key, "p.id", descending, after, limit,
+                        p -> sortValue(sort, p), PublicPoolDTO::getId);
+    }
+}
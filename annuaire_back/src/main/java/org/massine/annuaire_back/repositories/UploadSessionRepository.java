@@ -0,0 +1,22 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.models.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByUpdatedAtBefore(Instant limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadSession s WHERE s.poolId = :poolId")
+    int deleteAllInPool(@Param("poolId") int poolId);
+}
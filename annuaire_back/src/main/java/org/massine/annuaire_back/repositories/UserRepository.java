@@ -1,16 +1,18 @@
 package org.massine.annuaire_back.repositories;
 
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.User;
 import jakarta.annotation.Nonnull;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer>, UserRepositoryCustom {
     Optional<User> findById(int id);
     Optional<User> findByFirstName(String firstName);
     Optional<User> findByLastName(String lastName);
@@ -21,4 +23,23 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     List<User> findAll();
     boolean existsByEmail(String email);
 
+    /** Projection renvoyée par l'API : jamais de mot de passe */
+    String SUMMARY_SELECT = "SELECT new org.massine.annuaire_back.dto.UserResponseDTO("
+            + "u.id, u.firstName, u.lastName, u.email, u.role, u.createdAt) FROM User u ";
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :id")
+    Optional<UserResponseDTO> findSummaryById(@Param("id") int id);
+
+    @Query(SUMMARY_SELECT + "WHERE u.email = :email")
+    Optional<UserResponseDTO> findSummaryByEmail(@Param("email") String email);
+
+    @Query(SUMMARY_SELECT + "WHERE u.firstName = :firstName")
+    Optional<UserResponseDTO> findSummaryByFirstName(@Param("firstName") String firstName);
+
+    @Query(SUMMARY_SELECT + "WHERE u.lastName = :lastName")
+    Optional<UserResponseDTO> findSummaryByLastName(@Param("lastName") String lastName);
+
+    @Query(SUMMARY_SELECT + "WHERE u.role = :role")
+    List<UserResponseDTO> findSummariesByRole(@Param("role") String role);
+
 }
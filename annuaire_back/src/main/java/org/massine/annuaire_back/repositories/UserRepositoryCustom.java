@@ -0,0 +1,19 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.UserResponseDTO;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Utilisateurs sans mot de passe, paginés par clé.
+     * @param sort id, email, lastName ou createdAt
+     */
+    KeysetPage<UserResponseDTO> findSummaries(String sort, boolean descending, String after, int limit);
+
+    /**
+     * Membres d'un pool, paginés par clé sur l'id.
+     * @param inactiveOnly ne garder que les membres sans aucun fichier dans le pool
+     */
+    KeysetPage<UserResponseDTO> findPoolMembers(int poolId, boolean inactiveOnly, String after, int limit);
+}
@@ -0,0 +1,56 @@
+package org.massine.annuaire_back.repositories;
+
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.UserResponseDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.Instant;
+import java.util.Map;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    static final String SUMMARY_SELECT = "new org.massine.annuaire_back.dto.UserResponseDTO("
+            + "u.id, u.firstName, u.lastName, u.email, u.role, u.createdAt)";
+
+    static final Map<String, KeysetQuery.SortKey> SORT_KEYS = Map.of(
+            "id", new KeysetQuery.SortKey("u.id", Integer.class),
+            "email", new KeysetQuery.SortKey("u.email", String.class),
+            "lastName", new KeysetQuery.SortKey("u.lastName", String.class),
+            "createdAt", new KeysetQuery.SortKey("u.createdAt", Instant.class)
+    );
+
+    @PersistenceContext
+    private EntityManager em;
+
+    static Object sortValue(String sort, UserResponseDTO u) {
+        return switch (sort) {
+            case "email" -> u.getEmail();
+            case "lastName" -> u.getLastName();
+            case "createdAt" -> u.getCreatedAt();
+            default -> u.getId();
+        };
+    }
+
+    @Override
+    public KeysetPage<UserResponseDTO> findSummaries(String sort, boolean descending, String after, int limit) {
+        KeysetQuery.SortKey key = SORT_KEYS.get(sort);
+        if (key == null) throw new IllegalArgumentException("Tri non supporté : " + sort);
+        return KeysetQuery.of(em, UserResponseDTO.class, SUMMARY_SELECT, "User u")
+                .page(key, "u.id", descending, after, limit,
+                        u -> sortValue(sort, u), UserResponseDTO::getId);
+    }
+
+    @Override
+    public KeysetPage<UserResponseDTO> findPoolMembers(int poolId, boolean inactiveOnly, String after, int limit) {
+        KeysetQuery<UserResponseDTO> query = KeysetQuery.of(em, UserResponseDTO.class, SUMMARY_SELECT,
+                        "Access a JOIN a.user u")
+                .where("a.pool.id = :poolId")
+                .param("poolId", poolId);
+        if (inactiveOnly) {
+            query.where("NOT EXISTS (SELECT 1 FROM File f WHERE f.pool.id = :poolId AND f.userUploader.id = u.id)");
+        }
+        return query.page(SORT_KEYS.get("id"), "u.id", false, after, limit,
+                UserResponseDTO::getId, UserResponseDTO::getId);
+    }
+}
@@ -0,0 +1,210 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.repositories.AccessRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index mémoire des droits : pour chaque utilisateur, ses pools (tableau trié) et le rôle qu'il
+ * y détient, chargés à la première vérification. Les écritures d'{@link AccessService} le
+ * tiennent à jour : un nouvel accès y est ajouté, une modification ou une suppression retire
+ * l'utilisateur, rechargé à la vérification suivante. Les entrées expirent après
+ * {@code access-index.ttl} (écritures faites par une autre instance) et les moins récemment
+ * utilisées sont évincées au-delà de {@code access-index.max-users}.
+ */
+@Service
+public class AccessIndex {
+
+    public static final byte NONE = 0;
+    public static final byte MEMBER = 1;
+    public static final byte ADMIN = 2;
+    public static final byte OWNER = 3;
+
+    private final AccessRepository accessRepository;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    /** Incrémenté à chaque écriture : un chargement concurrent n'est alors pas mis en cache */
+    private final AtomicLong writes = new AtomicLong();
+    private final long ttlNanos;
+    private final int maxUsers;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public AccessIndex(AccessRepository accessRepository, MeterRegistry meterRegistry,
+                       @Value("${access-index.ttl:10m}") Duration ttl,
+                       @Value("${access-index.max-users:10000}") int maxUsers) {
+        this.accessRepository = accessRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maxUsers = maxUsers;
+
+        this.hits = Counter.builder("access.index").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("access.index").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("access.index.users", entries, Map::size)
+                .description("Utilisateurs présents dans l'index des droits")
+                .register(meterRegistry);
+    }
+
+    public static byte roleCode(String role) {
+        if ("owner".equalsIgnoreCase(role)) return OWNER;
+        if ("admin".equalsIgnoreCase(role)) return ADMIN;
+        return MEMBER;
+    }
+
+    /** Rôle de l'utilisateur dans le pool, {@link #NONE} s'il n'y a pas accès. */
+    public byte roleOf(int userId, int poolId) {
+        return entry(userId).roleOf(poolId);
+    }
+
+    public boolean hasAccess(int userId, int poolId) {
+        return roleOf(userId, poolId) != NONE;
+    }
+
+    public boolean canModify(int userId, int poolId) {
+        return roleOf(userId, poolId) >= ADMIN;
+    }
+
+    public boolean isOwner(int userId, int poolId) {
+        return roleOf(userId, poolId) == OWNER;
+    }
+
+    /** Nouvel accès enregistré. */
+    public void accessGranted(int userId, int poolId, String role) {
+        byte code = roleCode(role);
+        entries.compute(userId, (k, cur) -> {
+            writes.incrementAndGet();
+            return cur == null ? null : cur.with(poolId, code);
+        });
+    }
+
+    /** Accès modifié ou supprimé : l'utilisateur sera rechargé. */
+    public void userChanged(int userId) {
+        entries.compute(userId, (k, cur) -> {
+            writes.incrementAndGet();
+            return null;
+        });
+    }
+
+    public void poolDeleted(int poolId) {
+        writes.incrementAndGet();
+        entries.replaceAll((k, e) -> e.without(poolId));
+    }
+
+    private Entry entry(int userId) {
+        Entry e = entries.get(userId);
+        long now = System.nanoTime();
+        if (e != null && now - e.loadedAt < ttlNanos) {
+            e.lastUsed = now;
+            hits.increment();
+            return e;
+        }
+        misses.increment();
+
+        long stamp = writes.get();
+        Entry loaded = load(userId, now);
+        if (entries.size() >= maxUsers) {
+            evict();
+        }
+        entries.compute(userId, (k, cur) -> {
+            if (writes.get() != stamp) return cur == e ? null : cur;
+            return cur == null || cur == e ? loaded : cur;
+        });
+        return loaded;
+    }
+
+    private Entry load(int userId, long now) {
+        List<Object[]> rows = accessRepository.findPoolRolesByUserId(userId);
+        int[] pools = new int[rows.size()];
+        byte[] roles = new byte[rows.size()];
+        Object[][] sorted = rows.toArray(new Object[0][]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare((Integer) a[0], (Integer) b[0]));
+        int n = 0;
+        for (Object[] row : sorted) {
+            int poolId = (Integer) row[0];
+            byte code = roleCode((String) row[1]);
+            if (n > 0 && pools[n - 1] == poolId) {
+                // Accès en double : le rôle le plus élevé l'emporte
+                roles[n - 1] = (byte) Math.max(roles[n - 1], code);
+                continue;
+            }
+            pools[n] = poolId;
+            roles[n] = code;
+            n++;
+        }
+        return new Entry(Arrays.copyOf(pools, n), Arrays.copyOf(roles, n), now);
+    }
+
+    /** Retire le dixième des entrées les moins récemment utilisées. */
+    private void evict() {
+        long[] lastUsed = entries.values().stream().mapToLong(e -> e.lastUsed).sorted().toArray();
+        if (lastUsed.length == 0) return;
+        long threshold = lastUsed[Math.max(0, lastUsed.length / 10 - 1)];
+        entries.values().removeIf(e -> e.lastUsed <= threshold);
+    }
+
+    private static final class Entry {
+        private final int[] pools;
+        private final byte[] roles;
+        private final long loadedAt;
+        private volatile long lastUsed;
+
+        Entry(int[] pools, byte[] roles, long loadedAt) {
+            this.pools = pools;
+            this.roles = roles;
+            this.loadedAt = loadedAt;
+            this.lastUsed = loadedAt;
+        }
+
+        byte roleOf(int poolId) {
+            int i = Arrays.binarySearch(pools, poolId);
+            return i >= 0 ? roles[i] : NONE;
+        }
+
+        Entry with(int poolId, byte role) {
+            int i = Arrays.binarySearch(pools, poolId);
+            if (i >= 0) {
+                if (roles[i] >= role) return this;
+                byte[] r = roles.clone();
+                r[i] = role;
+                return copy(pools, r);
+            }
+            int at = -i - 1;
+            int[] p = new int[pools.length + 1];
+            byte[] r = new byte[roles.length + 1];
+            System.arraycopy(pools, 0, p, 0, at);
+            System.arraycopy(roles, 0, r, 0, at);
+            p[at] = poolId;
+            r[at] = role;
+            System.arraycopy(pools, at, p, at + 1, pools.length - at);
+            System.arraycopy(roles, at, r, at + 1, roles.length - at);
+            return copy(p, r);
+        }
+
+        Entry without(int poolId) {
+            int i = Arrays.binarySearch(pools, poolId);
+            if (i < 0) return this;
+            int[] p = new int[pools.length - 1];
+            byte[] r = new byte[roles.length - 1];
+            System.arraycopy(pools, 0, p, 0, i);
+            System.arraycopy(roles, 0, r, 0, i);
+            System.arraycopy(pools, i + 1, p, i, pools.length - i - 1);
+            System.arraycopy(roles, i + 1, r, i, roles.length - i - 1);
+            return copy(p, r);
+        }
+
+        private Entry copy(int[] p, byte[] r) {
+            Entry e = new Entry(p, r, loadedAt);
+            e.lastUsed = lastUsed;
+            return e;
+        }
+    }
+}
@@ -1,27 +1,38 @@
 package org.massine.annuaire_back.services;
 
+import org.massine.annuaire_back.dto.AccessSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.Access;
 import org.massine.annuaire_back.models.File;
 import org.massine.annuaire_back.models.Pool;
-import org.massine.annuaire_back.models.User;
 import org.massine.annuaire_back.repositories.AccessRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class AccessService {
     private final AccessRepository accessRepository;
-    public AccessService(AccessRepository accessRepository) {
+    private final PoolStatsStore poolStatsStore;
+    private final AccessIndex accessIndex;
+    public AccessService(AccessRepository accessRepository, PoolStatsStore poolStatsStore, AccessIndex accessIndex) {
         this.accessRepository = accessRepository;
+        this.poolStatsStore = poolStatsStore;
+        this.accessIndex = accessIndex;
     }
     public List<Access> getAllAccess() {
         return accessRepository.findAll();
     }
-    public List<User> getUsersFromPool(int pool_id){
-        return accessRepository.getUsersFromPool(pool_id);
+    public KeysetPage<AccessSummaryDTO> getAccessSummaries(boolean descending, String after, int limit) {
+        return accessRepository.findSummaries(descending, after, limit);
+    }
+    public AccessSummaryDTO getAccessSummary(int id) {
+        return accessRepository.findSummaryById(id);
+    }
+    public List<UserResponseDTO> getPoolMembers(int pool_id){
+        return accessRepository.findMembers(pool_id);
     }
     public List<Pool> getPoolsFromUser(int user_id){
         return accessRepository.getPoolsFromUser(user_id);
@@ -33,7 +44,19 @@ public class AccessService {
         return accessRepository.getCountUsersFromPool(pool_id);
     }
     public Access saveAccess(Access access){
-        return accessRepository.save(access);
+        boolean created = access.getId() == null;
+        Access saved = accessRepository.save(access);
+        int userId = saved.getUser().getId();
+        int poolId = saved.getPool().getId();
+        String role = saved.getRole();
+        if (created) {
+            poolStatsStore.accessAdded(poolId, userId, role);
+            // Index mis à jour une fois l'accès validé, jamais avec une écriture encore annulable
+            TransactionHooks.afterCommit(() -> accessIndex.accessGranted(userId, poolId, role));
+        } else {
+            TransactionHooks.afterCommit(() -> accessIndex.userChanged(userId));
+        }
+        return saved;
     }
     public Optional<Access> getAccessById(int access_id){
         return accessRepository.findById(access_id);
@@ -41,6 +64,9 @@ public class AccessService {
     public Access upadateAccess(int id,Access access){
         Access accessUpdated = accessRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User with id : "+id+" not found"));
+        int previousPoolId = accessUpdated.getPool().getId();
+        int previousUserId = accessUpdated.getUser().getId();
+        String previousRole = accessUpdated.getRole();
         if(access.getRole() != null){
             accessUpdated.setRole(access.getRole());
         }
@@ -50,16 +76,29 @@ public class AccessService {
         if(access.getUser() != null){
             accessUpdated.setUser(access.getUser());
         }
-        return accessRepository.save(accessUpdated);
+        Access saved = accessRepository.save(accessUpdated);
+        poolStatsStore.accessRemoved(previousPoolId, previousUserId, previousRole);
+        poolStatsStore.accessAdded(saved.getPool().getId(), saved.getUser().getId(), saved.getRole());
+        int userId = saved.getUser().getId();
+        TransactionHooks.afterCommit(() -> {
+            accessIndex.userChanged(previousUserId);
+            accessIndex.userChanged(userId);
+        });
+        return saved;
     }
     public void deleteAccess(int access_id){
-        accessRepository.deleteById(access_id);
+        accessRepository.findById(access_id).ifPresent(access -> {
+            accessRepository.delete(access);
+            poolStatsStore.accessRemoved(access.getPool().getId(), access.getUser().getId(), access.getRole());
+            int userId = access.getUser().getId();
+            TransactionHooks.afterCommit(() -> accessIndex.userChanged(userId));
+        });
     }
     public List<Access> getAccessesByPool(int poolId) {
         return accessRepository.findByPoolId(poolId);
     }
     public boolean userHasAccessToPool(int userId, int poolId) {
-        return accessRepository.existsByUserIdAndPoolId(userId, poolId);
+        return accessIndex.hasAccess(userId, poolId);
     }
 
 
@@ -76,27 +115,21 @@ public class AccessService {
 
 
     public boolean userCanModifyInPool(int userId, int poolId) {
-        Access access = getUserAccessToPool(userId, poolId);
-        if (access == null) return false;
-
-        String role = access.getRole();
-        
-        return "owner".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role);
+        return accessIndex.canModify(userId, poolId);
     }
 
 
     public boolean userIsOwnerOrAdmin(int userId, int poolId) {
-        Access access = getUserAccessToPool(userId, poolId);
-        if (access == null) return false;
+        return accessIndex.canModify(userId, poolId);
+    }
+
 
-        String role = access.getRole();
-        return "owner".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role);
+    public boolean userIsOwner(int userId, int poolId) {
+        return accessIndex.isOwner(userId, poolId);
     }
 
-    public List<Integer> getAccessiblePoolIds(int userId) {
-        return accessRepository.findByUserId(userId)
-                .stream()
-                .map(access -> access.getPool().getId())
-                .collect(Collectors.toList());
+    /** Ids des pools accessibles à l'utilisateur, tels que lus (un doublon reste possible). */
+    public int[] getAccessiblePoolIds(int userId) {
+        return accessRepository.findPoolIdsByUserId(userId);
     }
 }
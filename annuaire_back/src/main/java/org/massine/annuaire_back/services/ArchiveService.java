@@ -0,0 +1,216 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.models.File;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Archive ZIP de plusieurs fichiers écrite en flux vers la réponse, sans fichier temporaire.
+ * Un thread de préchargement lit les fichiers les uns après les autres depuis le stockage et
+ * remplit un nombre fixe de tampons, pendant que le thread de la requête compresse et écrit :
+ * la lecture du fichier suivant se fait pendant l'écriture du courant et la mémoire utilisée
+ * ne dépend pas de la taille de l'archive.
+ * Chaque archive en cours occupe un thread et une connexion au stockage tant que le client lit :
+ * au plus {@code archive.max-concurrent} à la fois, les suivantes sont refusées.
+ */
+@Service
+public class ArchiveService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS = 8;
+
+    private final StorageBackend storage;
+    private final Semaphore slots;
+    private final ExecutorService prefetchers;
+
+    public ArchiveService(StorageBackend storage, @Value("${archive.max-concurrent:4}") int maxConcurrent) {
+        this.storage = storage;
+        this.slots = new Semaphore(maxConcurrent);
+        this.prefetchers = Executors.newFixedThreadPool(maxConcurrent, r -> {
+            Thread t = new Thread(r, "archive-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Réserve la place d'une archive, avant d'engager la réponse ; {@link #writeZip} la rend.
+     * @throws RejectedExecutionException si {@code archive.max-concurrent} archives sont déjà en cours
+     */
+    public Slot reserve() {
+        if (!slots.tryAcquire()) {
+            throw new RejectedExecutionException("Trop d'archives en cours");
+        }
+        return new Slot();
+    }
+
+    /**
+     * Écrit l'archive des fichiers donnés dans {@code out} puis rend {@code slot}. Un fichier
+     * absent du stockage est ignoré ; toute autre erreur interrompt l'archive.
+     */
+    public void writeZip(Slot slot, List<File> files, OutputStream out) throws IOException {
+        try (slot) {
+            writeZip(files, out);
+        }
+    }
+
+    private void writeZip(List<File> files, OutputStream out) throws IOException {
+        Pipeline pipeline = new Pipeline();
+        Future<?> producer = prefetchers.submit(() -> pipeline.produce(files));
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.setLevel(Deflater.BEST_SPEED);
+            Set<String> names = new HashSet<>();
+            while (true) {
+                Chunk c = pipeline.take();
+                switch (c.kind) {
+                    case START -> zip.putNextEntry(new ZipEntry(uniqueName(names, c.name)));
+                    case DATA -> {
+                        zip.write(c.buffer, 0, c.length);
+                        pipeline.recycle(c);
+                    }
+                    case END -> zip.closeEntry();
+                    case FAILED -> throw new IOException("Lecture SFTP interrompue", c.error);
+                    case DONE -> {
+                        zip.finish();
+                        return;
+                    }
+                }
+            }
+        } finally {
+            pipeline.cancelled = true;
+            producer.cancel(true);
+        }
+    }
+
+    private static String uniqueName(Set<String> used, String name) {
+        String base = (name == null || name.isBlank()) ? "fichier" : name.replace('\\', '_').replace('/', '_');
+        String candidate = base;
+        int n = 2;
+        while (!used.add(candidate)) {
+            int dot = base.lastIndexOf('.');
+            candidate = dot > 0
+                    ? base.substring(0, dot) + " (" + n + ")" + base.substring(dot)
+                    : base + " (" + n + ")";
+            n++;
+        }
+        return candidate;
+    }
+
+    @Override
+    public void destroy() {
+        prefetchers.shutdownNow();
+    }
+
+    /** Place réservée par {@link #reserve()}, rendue une seule fois. */
+    public final class Slot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot() {}
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) slots.release();
+        }
+    }
+
+    private enum Kind { START, DATA, END, FAILED, DONE }
+
+    private static final class Chunk {
+        private final Kind kind;
+        private final byte[] buffer;
+        private String name;
+        private int length;
+        private Exception error;
+
+        Chunk(Kind kind, byte[] buffer) {
+            this.kind = kind;
+            this.buffer = buffer;
+        }
+
+        static Chunk control(Kind kind, String name, Exception error) {
+            Chunk c = new Chunk(kind, null);
+            c.name = name;
+            c.error = error;
+            return c;
+        }
+    }
+
+    /**
+     * Tampons de données réutilisés entre producteur et consommateur ; le nombre de tampons
+     * remplis en attente borne l'avance du préchargement.
+     */
+    private final class Pipeline {
+        private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(CHUNKS);
+        private final BlockingQueue<Chunk> filled = new LinkedBlockingQueue<>();
+        private volatile boolean cancelled;
+
+        Pipeline() {
+            for (int i = 0; i < CHUNKS; i++) free.add(new Chunk(Kind.DATA, new byte[CHUNK_SIZE]));
+        }
+
+        Chunk take() throws IOException {
+            try {
+                return filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Archive interrompue", e);
+            }
+        }
+
+        void recycle(Chunk c) {
+            free.offer(c);
+        }
+
+        void produce(List<File> files) {
+            try (StorageBackend.ReadSession session = storage.openReadSession()) {
+                for (File file : files) {
+                    if (cancelled) return;
+                    InputStream in;
+                    try {
+                        in = session.read(file.getPath());
+                    } catch (NoSuchFileException e) {
+                        logger.warn("Fichier {} absent du stockage, ignoré dans l'archive", file.getId());
+                        continue;
+                    }
+                    filled.put(Chunk.control(Kind.START, file.getName(), null));
+                    try (InputStream data = in) {
+                        while (!cancelled) {
+                            Chunk c = free.take();
+                            int n = data.readNBytes(c.buffer, 0, CHUNK_SIZE);
+                            if (n <= 0) {
+                                free.offer(c);
+                                break;
+                            }
+                            c.length = n;
+                            filled.put(c);
+                        }
+                    }
+                    filled.put(Chunk.control(Kind.END, null, null));
+                }
+                filled.put(Chunk.control(Kind.DONE, null, null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                filled.offer(Chunk.control(Kind.FAILED, null, e));
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.config.UploadConfig;
+import org.massine.annuaire_back.models.File;
+import org.massine.annuaire_back.models.FileStatus;
+import org.massine.annuaire_back.repositories.FileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.*;
+
+/**
+ * Envois asynchrones : le fichier est enregistré en {@code PENDING} et la requête répond tout de
+ * suite ; le contenu, déposé dans un répertoire local, est transféré vers le stockage par un pool
+ * de threads borné. Un contenu déjà stocké (même SHA-256) n'est pas transféré : le fichier est
+ * directement {@code READY}. Un transfert en échec est retenté avec un délai croissant, puis le fichier
+ * passe en {@code FAILED}. Au démarrage, les fichiers encore {@code PENDING} sont repris si
+ * leur contenu local existe toujours.
+ */
+@Service
+public class AsyncUploadService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUploadService.class);
+
+    private final UploadConfig uploadConfig;
+    private final FileService fileService;
+    private final BlobService blobService;
+    private final FileRepository fileRepository;
+    private final PoolStatsStore poolStatsStore;
+    private final PublicResponseCache publicResponseCache;
+    private final Path spoolDir;
+    private final ThreadPoolExecutor transfers;
+    private final ScheduledExecutorService retries;
+
+    private final Counter succeeded;
+    private final Counter retried;
+    private final Counter failed;
+
+    public AsyncUploadService(UploadConfig uploadConfig, FileService fileService, BlobService blobService,
+                              FileRepository fileRepository, PoolStatsStore poolStatsStore,
+                              PublicResponseCache publicResponseCache, MeterRegistry meterRegistry) throws IOException {
+        this.uploadConfig = uploadConfig;
+        this.fileService = fileService;
+        this.blobService = blobService;
+        this.fileRepository = fileRepository;
+        this.poolStatsStore = poolStatsStore;
+        this.publicResponseCache = publicResponseCache;
+        this.spoolDir = Paths.get(uploadConfig.getAsyncSpoolDir());
+        Files.createDirectories(spoolDir);
+
+        this.transfers = new ThreadPoolExecutor(uploadConfig.getAsyncWorkers(), uploadConfig.getAsyncWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(uploadConfig.getAsyncQueueCapacity()), r -> {
+            Thread t = new Thread(r, "upload-transfer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.retries = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "upload-transfer-retry");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("upload.transfer.queue", transfers, e -> e.getQueue().size())
+                .description("Transferts asynchrones en attente")
+                .register(meterRegistry);
+        this.succeeded = Counter.builder("upload.transfer").tag("result", "ready").register(meterRegistry);
+        this.retried = Counter.builder("upload.transfer").tag("result", "retry").register(meterRegistry);
+        this.failed = Counter.builder("upload.transfer").tag("result", "failed").register(meterRegistry);
+
+        this.retries.execute(this::recover);
+    }
+
+    /**
+     * Dépose le contenu localement, enregistre le fichier en {@code PENDING} et planifie son
+     * transfert, sauf si le contenu est déjà stocké.
+     * @throws RejectedExecutionException si la file de transfert est pleine
+     */
+    public File submit(MultipartFile content, File file) throws IOException {
+        if (transfers.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("File de transfert pleine");
+        }
+        Path tmp = Files.createTempFile(spoolDir, "upload-", ".tmp");
+        File persisted;
+        try {
+            content.transferTo(tmp);
+            BlobService.Digest digest = blobService.digest(new FileSystemResource(tmp));
+            fileService.attachBlob(file, digest);
+            if (blobService.acquire(digest)) {
+                // Contenu déjà stocké : rien à transférer
+                file.setStatus(FileStatus.READY);
+                try {
+                    persisted = fileService.saveFile(file);
+                } catch (RuntimeException e) {
+                    blobService.release(digest.hash());
+                    throw e;
+                }
+                Files.delete(tmp);
+                return persisted;
+            }
+            file.setStatus(FileStatus.PENDING);
+            persisted = fileService.saveFile(file);
+            Files.move(tmp, spoolPath(persisted.getId()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        TransactionHooks.afterCommit(() -> enqueue(persisted, 1));
+        return persisted;
+    }
+
+    private void enqueue(File file, int attempt) {
+        try {
+            transfers.execute(() -> transfer(file, attempt));
+        } catch (RejectedExecutionException e) {
+            // File pleine (reprise au démarrage, nouvelles tentatives) : on repasse plus tard
+            if (!retries.isShutdown()) {
+                retries.schedule(() -> enqueue(file, attempt),
+                        uploadConfig.getAsyncRetryDelay().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void transfer(File file, int attempt) {
+        int fileId = file.getId();
+        Path spool = spoolPath(fileId);
+        try {
+            if (file.getBlobHash() != null) {
+                blobService.store(new FileSystemResource(spool));
+            } else {
+                // Envoi antérieur à la déduplication, repris au démarrage
+                String remotePath = file.getPath();
+                int slash = remotePath.lastIndexOf('/');
+                fileService.uploadToDir(remotePath.substring(0, slash), remotePath.substring(slash + 1),
+                        Files.newInputStream(spool));
+            }
+        } catch (Exception e) {
+            if (attempt < uploadConfig.getAsyncMaxAttempts()) {
+                retried.increment();
+                logger.warn("Transfert du fichier {} en échec (tentative {}): {}", fileId, attempt, e.getMessage());
+                retries.schedule(() -> enqueue(file, attempt + 1),
+                        uploadConfig.getAsyncRetryDelay().toMillis() * attempt, TimeUnit.MILLISECONDS);
+                return;
+            }
+            failed.increment();
+            logger.error("Transfert du fichier {} abandonné après {} tentatives", fileId, attempt, e);
+            markFailed(file);
+            deleteQuietly(spool);
+            return;
+        }
+
+        try {
+            int updated = file.getBlobHash() != null
+                    ? fileRepository.markReady(fileId, file.getBlobHash())
+                    : fileRepository.updateStatus(fileId, FileStatus.READY);
+            if (updated == 0) {
+                // Supprimé ou remplacé pendant le transfert : la référence n'est plus portée
+                releaseTransferred(file);
+            } else {
+                succeeded.increment();
+                statusChanged(file);
+            }
+        } catch (RuntimeException e) {
+            // Statut non enregistré : la référence prise par le transfert est rendue
+            failed.increment();
+            logger.error("Fin du transfert du fichier {} non enregistrée", fileId, e);
+            releaseTransferred(file);
+            markFailed(file);
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
+
+    private void releaseTransferred(File file) {
+        try {
+            if (file.getBlobHash() != null) {
+                blobService.release(file.getBlobHash());
+            } else {
+                fileService.deleteRemote(file.getPath());
+            }
+        } catch (Exception ignore) {}
+    }
+
+    /** Sans effet si la base reste indisponible : le fichier, PENDING sans contenu local, passera en FAILED au démarrage. */
+    private void markFailed(File file) {
+        try {
+            fileRepository.updateStatus(file.getId(), FileStatus.FAILED);
+            statusChanged(file);
+        } catch (RuntimeException e) {
+            logger.warn("Passage en FAILED du fichier {} impossible: {}", file.getId(), e.getMessage());
+        }
+    }
+
+    /** Appelé une fois le nouveau statut validé : statistiques et réponses publiques du pool recalculées. */
+    private void statusChanged(File file) {
+        int poolId = file.getPool().getId();
+        poolStatsStore.invalidate(poolId);
+        publicResponseCache.poolChanged(poolId);
+    }
+
+    private void recover() {
+        try {
+            for (File file : fileRepository.findByStatus(FileStatus.PENDING)) {
+                if (Files.exists(spoolPath(file.getId()))) {
+                    enqueue(file, 1);
+                } else {
+                    logger.warn("Contenu local du fichier {} introuvable, passage en FAILED", file.getId());
+                    markFailed(file);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Reprise des envois asynchrones impossible: {}", e.getMessage());
+        }
+    }
+
+    private Path spoolPath(int fileId) {
+        return spoolDir.resolve(fileId + ".bin");
+    }
+
+    private static void deleteQuietly(Path p) {
+        try { Files.deleteIfExists(p); } catch (IOException ignore) {}
+    }
+
+    @Override
+    public void destroy() {
+        retries.shutdownNow();
+        transfers.shutdownNow();
+    }
+}
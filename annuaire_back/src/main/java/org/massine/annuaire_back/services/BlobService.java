@@ -0,0 +1,223 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.config.SftpConfig;
+import org.massine.annuaire_back.models.FileBlob;
+import org.massine.annuaire_back.repositories.FileBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Stockage dédupliqué par contenu. Chaque contenu est haché (SHA-256) et stocké une seule fois
+ * sous {@code <base>/blobs/<xx>/<hash>} ; {@link FileBlob} compte les fichiers qui le
+ * référencent. Un contenu déjà connu ne coûte qu'une référence de plus, sans transfert, et
+ * n'est supprimé du stockage qu'avec sa dernière référence.
+ * Les transferts se font sous un nom temporaire ; seuls le renommage et la mise à jour du
+ * compteur sont sérialisés (par hash, dans l'instance).
+ */
+@Service
+public class BlobService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    /** Empreinte d'un contenu */
+    public record Digest(String hash, long size) {}
+
+    private final SftpConfig sftpConfig;
+    private final FileBlobRepository fileBlobRepository;
+    private final StorageBackend storage;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bytesSaved;
+
+    public BlobService(SftpConfig sftpConfig, FileBlobRepository fileBlobRepository, StorageBackend storage,
+                       MeterRegistry meterRegistry) {
+        this.sftpConfig = sftpConfig;
+        this.fileBlobRepository = fileBlobRepository;
+        this.storage = storage;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        this.hits = Counter.builder("storage.dedup").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("storage.dedup").tag("result", "miss").register(meterRegistry);
+        this.bytesSaved = Counter.builder("storage.dedup.bytes.saved")
+                .description("Octets non transférés car déjà stockés")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public String pathOf(String hash) {
+        return sftpConfig.normalizedBaseDir() + "/blobs/" + hash.substring(0, 2) + "/" + hash;
+    }
+
+    /** Empreinte d'un contenu relisible (lu une fois). */
+    public Digest digest(InputStreamSource content) throws IOException {
+        try (HashingInputStream in = new HashingInputStream(content.getInputStream())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.digest();
+        }
+    }
+
+    /**
+     * Ajoute une référence à un contenu déjà stocké.
+     * @return false si le contenu est inconnu
+     */
+    public boolean acquire(Digest digest) {
+        synchronized (lockFor(digest.hash())) {
+            return addReference(digest);
+        }
+    }
+
+    /**
+     * Contenu relisible (fichier multipart, fichier local) : haché d'abord, transféré seulement
+     * s'il est inconnu. La référence obtenue est rendue par {@link #release}.
+     */
+    public Digest store(InputStreamSource content) throws IOException {
+        Digest digest = digest(content);
+        if (acquire(digest)) {
+            return digest;
+        }
+        String tmp = temporaryPath();
+        writeTemporary(tmp, content.getInputStream());
+        return adoptTemporary(digest, tmp);
+    }
+
+    /**
+     * Contenu lisible une seule fois (corps de requête) : haché pendant son écriture sous un nom
+     * temporaire, puis renommé, ou abandonné si le contenu était déjà connu.
+     */
+    public Digest store(InputStream data) throws IOException {
+        String tmp = temporaryPath();
+        HashingInputStream in = new HashingInputStream(data);
+        writeTemporary(tmp, in);
+        return adoptTemporary(in.digest(), tmp);
+    }
+
+    /**
+     * Contenu déjà présent sur le stockage sous {@code path} (envoi fractionné) : renommé à son
+     * emplacement définitif, ou supprimé si le contenu était déjà connu. En cas d'échec,
+     * {@code path} est laissé en place.
+     */
+    public Digest adopt(Digest digest, String path) throws IOException {
+        boolean moved;
+        synchronized (lockFor(digest.hash())) {
+            moved = !addReference(digest);
+            if (moved) {
+                storage.move(path, pathOf(digest.hash()));
+                fileBlobRepository.insertOrAddReference(digest.hash(), digest.size(), Instant.now());
+                misses.increment();
+            }
+        }
+        if (!moved) {
+            deleteQuietly(path);
+        }
+        return digest;
+    }
+
+    /**
+     * Rend une référence ; le contenu est supprimé du stockage avec la dernière.
+     */
+    public void release(String hash) throws IOException {
+        release(hash, 1);
+    }
+
+    /** Rend {@code count} références d'un coup (fichiers supprimés en masse). */
+    public void release(String hash, int count) throws IOException {
+        synchronized (lockFor(hash)) {
+            fileBlobRepository.removeReferences(hash, count);
+            if (fileBlobRepository.deleteIfUnreferenced(hash) > 0) {
+                storage.delete(pathOf(hash));
+            }
+        }
+    }
+
+    private boolean addReference(Digest digest) {
+        if (fileBlobRepository.addReference(digest.hash()) == 0) {
+            return false;
+        }
+        hits.increment();
+        bytesSaved.increment(digest.size());
+        return true;
+    }
+
+    private Digest adoptTemporary(Digest digest, String tmp) throws IOException {
+        try {
+            return adopt(digest, tmp);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tmp);
+            throw e;
+        }
+    }
+
+    private void writeTemporary(String tmp, InputStream data) throws IOException {
+        try {
+            storage.write(tmp, data);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tmp);
+            throw e;
+        }
+    }
+
+    private String temporaryPath() {
+        return sftpConfig.normalizedBaseDir() + "/blobs/tmp/" + UUID.randomUUID();
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void deleteQuietly(String path) {
+        try {
+            storage.delete(path);
+        } catch (IOException ignore) {}
+    }
+
+    /** Flux qui calcule le SHA-256 et compte les octets lus. */
+    private static final class HashingInputStream extends DigestInputStream {
+        private long count;
+
+        HashingInputStream(InputStream in) {
+            super(in, sha256());
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        Digest digest() {
+            return new Digest(HexFormat.of().formatHex(getMessageDigest().digest()), count);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
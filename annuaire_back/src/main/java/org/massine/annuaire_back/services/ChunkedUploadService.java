@@ -0,0 +1,233 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.config.UploadConfig;
+import org.massine.annuaire_back.dto.UploadStatusDTO;
+import org.massine.annuaire_back.models.File;
+import org.massine.annuaire_back.models.Pool;
+import org.massine.annuaire_back.models.UploadSession;
+import org.massine.annuaire_back.models.User;
+import org.massine.annuaire_back.repositories.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envoi de gros fichiers en morceaux numérotés. Chaque morceau est vérifié (SHA-256) puis
+ * ajouté en fin du fichier partiel sur le stockage ; seul un morceau est en mémoire à la fois.
+ * La taille du fichier partiel indique ce qui a été reçu : un morceau déjà reçu est ignoré,
+ * un morceau reçu en partie (coupure pendant l'écriture) n'est complété que de ce qui manque.
+ * Les morceaux doivent arriver dans l'ordre ; leur SHA-256 global est calculé au fil de l'eau
+ * (relu depuis le stockage après un redémarrage) pour dédupliquer le fichier terminé.
+ */
+@Service
+public class ChunkedUploadService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private final UploadConfig uploadConfig;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final StorageBackend storage;
+    private final FileService fileService;
+    private final BlobService blobService;
+    private final ConcurrentHashMap<String, Object> locks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RunningDigest> digests = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService cleaner;
+
+    public ChunkedUploadService(UploadConfig uploadConfig, UploadSessionRepository uploadSessionRepository,
+                                StorageBackend storage, FileService fileService, BlobService blobService) {
+        this.uploadConfig = uploadConfig;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.storage = storage;
+        this.fileService = fileService;
+        this.blobService = blobService;
+
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "upload-session-cleaner");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(60_000, uploadConfig.getSessionTtl().toMillis() / 4);
+        this.cleaner.scheduleWithFixedDelay(this::purgeExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public UploadSession create(int poolId, int userId, String filename, long size, String displayName,
+                                String description, LocalDate expirationDate) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Taille invalide");
+        }
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setPoolId(poolId);
+        session.setUserId(userId);
+        session.setFileName(fileService.sanitizeFilename(filename));
+        session.setDisplayName(displayName);
+        session.setRemoteDir(fileService.buildRemoteDirFor(poolId, userId));
+        session.setTotalSize(size);
+        session.setChunkSize((int) Math.min(Integer.MAX_VALUE, uploadConfig.getChunkSize().toBytes()));
+        session.setDescription(description);
+        session.setExpirationDate(expirationDate);
+        session.setCreatedAt(Instant.now());
+        session.setUpdatedAt(session.getCreatedAt());
+        return uploadSessionRepository.save(session);
+    }
+
+    public UploadSession get(String id) {
+        return uploadSessionRepository.findById(id).orElse(null);
+    }
+
+    public UploadStatusDTO status(UploadSession session) throws Exception {
+        return toStatus(session, receivedBytes(session));
+    }
+
+    /**
+     * Reçoit le morceau {@code index}.
+     * @throws IllegalArgumentException taille ou somme de contrôle incorrecte
+     * @throws IllegalStateException un morceau précédent manque
+     */
+    public UploadStatusDTO writeChunk(UploadSession session, int index, InputStream body, String sha256) throws Exception {
+        if (index < 0 || index >= session.chunkCount()) {
+            throw new IllegalArgumentException("Morceau hors limites");
+        }
+        if (sha256 == null || sha256.isBlank()) {
+            throw new IllegalArgumentException("Somme de contrôle manquante");
+        }
+        long offset = (long) index * session.getChunkSize();
+        int expected = (int) Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+
+        byte[] data = body.readNBytes(expected);
+        if (data.length != expected || body.read() != -1) {
+            throw new IllegalArgumentException("Le morceau " + index + " doit faire " + expected + " octets");
+        }
+        if (!HexFormat.of().formatHex(sha256(data)).equalsIgnoreCase(sha256.trim())) {
+            throw new IllegalArgumentException("Somme de contrôle incorrecte");
+        }
+
+        synchronized (locks.computeIfAbsent(session.getId(), k -> new Object())) {
+            long received = receivedBytes(session);
+            if (received < offset) {
+                throw new IllegalStateException("Morceau " + (received / session.getChunkSize()) + " attendu");
+            }
+            int skip = (int) Math.min(expected, received - offset);
+            if (skip < expected) {
+                storage.append(session.partPath(), new ByteArrayInputStream(data, skip, expected - skip));
+                received = offset + expected;
+            }
+            RunningDigest running = digests.computeIfAbsent(session.getId(), k -> new RunningDigest());
+            if (running.hashed == offset) {
+                running.digest.update(data);
+                running.hashed = offset + expected;
+            }
+            session.setUpdatedAt(Instant.now());
+            uploadSessionRepository.save(session);
+            return toStatus(session, received);
+        }
+    }
+
+    /**
+     * Termine l'envoi : le fichier partiel devient un blob (ou est abandonné si ce contenu est
+     * déjà stocké) et le {@link File} est créé.
+     * @throws IllegalStateException des octets manquent
+     */
+    public File complete(UploadSession session, Pool pool, User uploader) throws Exception {
+        synchronized (locks.computeIfAbsent(session.getId(), k -> new Object())) {
+            long received = receivedBytes(session);
+            if (received != session.getTotalSize()) {
+                throw new IllegalStateException(received + " octets reçus sur " + session.getTotalSize());
+            }
+            RunningDigest running = digests.remove(session.getId());
+            BlobService.Digest digest = running != null && running.hashed == received
+                    ? new BlobService.Digest(HexFormat.of().formatHex(running.digest.digest()), received)
+                    : blobService.digest(() -> storage.read(session.partPath(), 0));
+            blobService.adopt(digest, session.partPath());
+
+            File file = new File();
+            file.setName(session.getDisplayName());
+            fileService.attachBlob(file, digest);
+            file.setPool(pool);
+            file.setUserUploader(uploader);
+            file.setCreatedAt(Instant.now());
+            file.setDescription(session.getDescription());
+            file.setExpirationDate(session.getExpirationDate());
+            File persisted;
+            try {
+                persisted = fileService.saveFile(file);
+            } catch (RuntimeException e) {
+                blobService.release(digest.hash());
+                throw e;
+            }
+
+            uploadSessionRepository.delete(session);
+            locks.remove(session.getId());
+            return persisted;
+        }
+    }
+
+    public void abort(UploadSession session) throws Exception {
+        synchronized (locks.computeIfAbsent(session.getId(), k -> new Object())) {
+            fileService.deleteRemote(session.partPath());
+            uploadSessionRepository.delete(session);
+            locks.remove(session.getId());
+            digests.remove(session.getId());
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            Instant limit = Instant.now().minus(uploadConfig.getSessionTtl());
+            for (UploadSession session : uploadSessionRepository.findByUpdatedAtBefore(limit)) {
+                abort(session);
+                logger.info("Envoi fractionné {} abandonné (inactif)", session.getId());
+            }
+        } catch (Exception e) {
+            logger.warn("Nettoyage des envois fractionnés impossible: {}", e.getMessage());
+        }
+    }
+
+    private long receivedBytes(UploadSession session) throws IOException {
+        StorageBackend.StoredObject part = storage.stat(session.partPath());
+        return part == null ? 0 : part.size();
+    }
+
+    private static UploadStatusDTO toStatus(UploadSession session, long received) {
+        return new UploadStatusDTO(session.getId(), session.getTotalSize(), session.getChunkSize(),
+                session.chunkCount(), received, (int) (received / session.getChunkSize()));
+    }
+
+    private static byte[] sha256(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** SHA-256 des {@code hashed} premiers octets reçus */
+    private static final class RunningDigest {
+        private final MessageDigest digest = newSha256();
+        private long hashed;
+    }
+
+    @Override
+    public void destroy() {
+        cleaner.shutdownNow();
+    }
+}
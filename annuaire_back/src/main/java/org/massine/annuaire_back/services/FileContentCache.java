@@ -0,0 +1,276 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.config.FileCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache disque en lecture traversante devant le stockage SFTP.
+ * Une entrée est identifiée par l'id du fichier et validée par (chemin, taille, mtime) issus
+ * du {@code lstat} SFTP. Le cache se remplit pendant une lecture complète du fichier distant
+ * (le client reçoit les octets en même temps) et les fichiers en cache sont relus depuis le
+ * disque local, sans aller-retour SFTP. Éviction LRU sous un budget d'octets.
+ */
+@Service
+public class FileContentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileContentCache.class);
+    /** Préfixe des fichiers du cache : le répertoire peut contenir autre chose, qui n'est jamais touché */
+    private static final String PREFIX = "fcache-";
+
+    private final FileCacheConfig config;
+    private final Path directory;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<Integer> filling = ConcurrentHashMap.newKeySet();
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public FileContentCache(FileCacheConfig config, MeterRegistry meterRegistry) throws IOException {
+        this.config = config;
+        this.directory = Paths.get(config.getDirectory());
+        if (config.isEnabled()) {
+            Files.createDirectories(directory);
+            // L'index n'est pas persisté : les entrées d'un démarrage précédent sont supprimées
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*")) {
+                for (Path p : stream) {
+                    if (Files.isRegularFile(p, LinkOption.NOFOLLOW_LINKS)) deleteQuietly(p);
+                }
+            }
+        }
+
+        this.hits = Counter.builder("file.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("file.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("file.cache.evictions").register(meterRegistry);
+        Gauge.builder("file.cache.size", this, FileContentCache::getTotalBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public synchronized long getTotalBytes() { return totalBytes; }
+
+    /**
+     * Renvoie le fichier local si l'entrée correspond toujours à la version distante.
+     */
+    public Path lookup(int fileId, String path, long size, long mtime) {
+        if (!config.isEnabled()) return null;
+        Entry stale = null;
+        synchronized (this) {
+            Entry e = entries.get(fileId);
+            if (e != null) {
+                if (e.matches(path, size, mtime) && Files.exists(e.file)) {
+                    hits.increment();
+                    return e.file;
+                }
+                entries.remove(fileId);
+                totalBytes -= e.size;
+                stale = e;
+            }
+        }
+        misses.increment();
+        if (stale != null) deleteQuietly(stale.file);
+        return null;
+    }
+
+    /**
+     * Enveloppe un flux distant pour alimenter le cache au fil de la lecture. Le remplissage est
+     * abandonné si le flux est d'abord positionné (requête Range), interrompu, ou si un autre
+     * remplissage est déjà en cours pour ce fichier.
+     */
+    public InputStream fillWhileReading(int fileId, String path, long size, long mtime, InputStream remote) {
+        if (!config.isEnabled() || size > config.getMaxFileSize().toBytes()
+                || size > config.getMaxSize().toBytes() || !filling.add(fileId)) {
+            return remote;
+        }
+        try {
+            Path tmp = Files.createTempFile(directory, PREFIX + fileId + "-", ".part");
+            return new FillingInputStream(remote, tmp, new Entry(fileId, path, size, mtime, null));
+        } catch (IOException e) {
+            filling.remove(fileId);
+            logger.warn("Cache disque indisponible: {}", e.getMessage());
+            return remote;
+        }
+    }
+
+    public void invalidate(int fileId) {
+        Entry e;
+        synchronized (this) {
+            e = entries.remove(fileId);
+            if (e != null) totalBytes -= e.size;
+        }
+        if (e != null) deleteQuietly(e.file);
+    }
+
+    private void commit(Path tmp, Entry pending) {
+        Path target = directory.resolve(PREFIX + pending.fileId + "-" + Long.toHexString(pending.mtime) + "-" + Long.toHexString(pending.size));
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(tmp);
+            return;
+        }
+        Entry entry = new Entry(pending.fileId, pending.path, pending.size, pending.mtime, target);
+        List<Path> toDelete = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = entries.put(entry.fileId, entry);
+            if (previous != null) {
+                totalBytes -= previous.size;
+                if (!previous.file.equals(target)) toDelete.add(previous.file);
+            }
+            totalBytes += entry.size;
+            Iterator<Entry> it = entries.values().iterator();
+            while (totalBytes > config.getMaxSize().toBytes() && it.hasNext()) {
+                Entry eldest = it.next();
+                if (eldest == entry) continue;
+                it.remove();
+                totalBytes -= eldest.size;
+                toDelete.add(eldest.file);
+                evictions.increment();
+            }
+        }
+        toDelete.forEach(FileContentCache::deleteQuietly);
+    }
+
+    private static void deleteQuietly(Path p) {
+        try { Files.deleteIfExists(p); } catch (IOException ignore) {}
+    }
+
+    private record Entry(int fileId, String path, long size, long mtime, Path file) {
+        boolean matches(String path, long size, long mtime) {
+            return this.size == size && this.mtime == mtime && Objects.equals(this.path, path);
+        }
+    }
+
+    private class FillingInputStream extends InputStream {
+        private final InputStream remote;
+        private final Path tmp;
+        private final Entry pending;
+        private FileChannel out;
+        private long written;
+        private boolean started;
+        private boolean aborted;
+
+        FillingInputStream(InputStream remote, Path tmp, Entry pending) {
+            this.remote = remote;
+            this.tmp = tmp;
+            this.pending = pending;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n > 0) abort();
+            return remote.skip(n);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = remote.read(b, off, len);
+            if (n > 0 && !aborted) {
+                try {
+                    if (!started) {
+                        out = FileChannel.open(tmp, StandardOpenOption.WRITE);
+                        started = true;
+                    }
+                    ByteBuffer buf = ByteBuffer.wrap(b, off, n);
+                    while (buf.hasRemaining()) out.write(buf);
+                    written += n;
+                } catch (IOException e) {
+                    abort();
+                }
+            }
+            return n;
+        }
+
+        private void abort() {
+            if (aborted) return;
+            aborted = true;
+            closeOut();
+        }
+
+        private void closeOut() {
+            if (out != null) {
+                try { out.close(); } catch (IOException ignore) {}
+                out = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                remote.close();
+            } finally {
+                closeOut();
+                if (!aborted && written == pending.size) {
+                    commit(tmp, pending);
+                } else {
+                    deleteQuietly(tmp);
+                }
+                filling.remove(pending.fileId);
+            }
+        }
+    }
+
+    /**
+     * Flux sur un fichier du cache : {@code skip} repositionne le canal sans lire.
+     * La réponse servlet n'est pas un canal fichier ou socket : la copie vers le client passe
+     * par un tampon du tas (pas de {@code sendfile}).
+     */
+    static class CachedFileInputStream extends InputStream {
+        private final FileChannel channel;
+
+        CachedFileInputStream(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            int n = channel.read(one);
+            return n <= 0 ? -1 : one.get(0) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return channel.read(ByteBuffer.wrap(b, off, len));
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long pos = channel.position();
+            long target = Math.min(channel.size(), pos + Math.max(0, n));
+            channel.position(target);
+            return target - pos;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(Integer.MAX_VALUE, channel.size() - channel.position());
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,108 +1,219 @@
 package org.massine.annuaire_back.services;
 
 import org.massine.annuaire_back.config.SftpConfig;
+import org.massine.annuaire_back.dto.FileSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.File;
+import org.massine.annuaire_back.models.FileStatus;
 import org.massine.annuaire_back.models.Pool;
-import org.massine.annuaire_back.models.User;
 import org.massine.annuaire_back.repositories.FileRepository;
-import com.jcraft.jsch.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 
 @Service
 public class FileService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileService.class);
+
     private final SftpConfig sftpConfig;
     private final FileRepository fileRepository;
-
-    // Pool de sessions SFTP pour réutilisation
-    private static final ConcurrentLinkedQueue<Session> sessionPool = new ConcurrentLinkedQueue<>();
-    private static final int MAX_POOL_SIZE = 5; // Limite pour éviter une consommation mémoire excessive
-
-    public FileService(SftpConfig sftpConfig, FileRepository fileRepository) {
+    private final StorageBackend storage;
+    private final BlobService blobService;
+    private final FileContentCache fileContentCache;
+    private final PoolStatsStore poolStatsStore;
+    private final PublicResponseCache publicResponseCache;
+
+    public FileService(SftpConfig sftpConfig, FileRepository fileRepository, StorageBackend storage,
+                       BlobService blobService, FileContentCache fileContentCache, PoolStatsStore poolStatsStore,
+                       PublicResponseCache publicResponseCache) {
         this.sftpConfig = sftpConfig;
         this.fileRepository = fileRepository;
+        this.storage = storage;
+        this.blobService = blobService;
+        this.fileContentCache = fileContentCache;
+        this.poolStatsStore = poolStatsStore;
+        this.publicResponseCache = publicResponseCache;
     }
 
 
     public List<File> getAllFiles() { return fileRepository.findAll(); }
 
+    public KeysetPage<FileSummaryDTO> getAccessibleFiles(int userId, String sort, boolean descending, String after, int limit) {
+        return fileRepository.findAccessibleSummaries(userId, sort, descending, after, limit);
+    }
+
+    public KeysetPage<FileSummaryDTO> getPoolFiles(int poolId, String sort, boolean descending, String after, int limit) {
+        return fileRepository.findPoolSummaries(poolId, sort, descending, after, limit);
+    }
+
     public long getFilesCount() { return fileRepository.count(); }
 
     public File getFileById(int id) { return fileRepository.findById(id).orElse(null); }
 
+    public FileSummaryDTO getFileSummary(int id) { return fileRepository.findSummaryById(id); }
+
     public Optional<File> getOptional(int id) { return fileRepository.findById(id); }
 
     public Pool findPoolById(int fileId) { return fileRepository.findPoolById(fileId); }
-    public List<File> findByPoolId(int poolId) {
-        return fileRepository.findByPoolId(poolId);
+    public long countByPoolId(int poolId) { return fileRepository.countByPoolId(poolId); }
+
+    /**
+     * Fichiers à archiver : tout le pool si {@code ids} est null, sinon la sélection dans l'ordre
+     * demandé. Seuls les fichiers {@code READY} sont archivables.
+     * @throws IllegalArgumentException si un id est inconnu, hors du pool ou pas encore transféré
+     */
+    public List<File> getArchiveFiles(int poolId, List<Integer> ids) {
+        if (ids == null) {
+            List<File> files = new ArrayList<>(fileRepository.findByPoolId(poolId));
+            files.removeIf(f -> f.getStatus() != FileStatus.READY);
+            return files;
+        }
+        List<Integer> distinct = new ArrayList<>(ids.size());
+        IntSet seen = new IntSet(ids.size());
+        for (Integer id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Fichier null absent du pool " + poolId);
+            }
+            if (seen.add(id)) distinct.add(id);
+        }
+        Map<Integer, File> found = new HashMap<>();
+        for (File f : fileRepository.findAllById(distinct)) {
+            found.put(f.getId(), f);
+        }
+        List<File> files = new ArrayList<>();
+        for (Integer id : distinct) {
+            File f = found.get(id);
+            if (f == null || f.getPool() == null || f.getPool().getId() != poolId) {
+                throw new IllegalArgumentException("Fichier " + id + " absent du pool " + poolId);
+            }
+            if (f.getStatus() != FileStatus.READY) {
+                throw new IllegalArgumentException("Fichier " + id + " pas encore disponible");
+            }
+            files.add(f);
+        }
+        return files;
     }
+
     public String findPath(int id) { return fileRepository.findPath(id); }
 
-    public User findUploader(int fileId) { return fileRepository.findUploader(fileId); }
+    public UserResponseDTO findUploader(int fileId) { return fileRepository.findUploaderSummary(fileId); }
+
+    public File saveFile(File file) {
+        boolean created = file.getId() == null;
+        File saved = fileRepository.save(file);
+        if (created) {
+            poolStatsStore.fileAdded(saved.getPool().getId(), saved.getUserUploader().getId(),
+                    saved.getCreatedAt(), saved.getName());
+        }
+        publicResponseCache.poolChanged(saved.getPool().getId());
+        return saved;
+    }
 
-    public File saveFile(File file) { return fileRepository.save(file); }
+    public boolean existsById(int id) { return fileRepository.existsById(id); }
 
-    public void deleteFileById(int id) { fileRepository.deleteById(id); }
+    /**
+     * Supprime le fichier si son contenu est encore celui de {@code file}, puis libère ce contenu
+     * une fois la suppression validée : deux suppressions concurrentes, ou une suppression qui
+     * croise un remplacement de contenu ou la suppression du pool, ne rendent jamais deux fois
+     * la même référence.
+     * @return false si le fichier a disparu ou que son contenu a changé entre-temps
+     */
+    @Transactional
+    public boolean deleteFile(File file) {
+        int id = file.getId();
+        File content = contentOf(file);
+        if (fileRepository.deleteIfContent(id, content.getPath(), content.getStatus()) != 1) {
+            return false;
+        }
+        int poolId = file.getPool().getId();
+        int uploaderId = file.getUserUploader().getId();
+        TransactionHooks.afterCommit(() -> {
+            poolStatsStore.fileRemoved(poolId, uploaderId, file.getCreatedAt(), file.getName());
+            publicResponseCache.poolChanged(poolId);
+            fileContentCache.invalidate(id);
+            try {
+                releaseContent(content);
+            } catch (Exception e) {
+                logger.warn("Contenu du fichier supprimé {} non libéré ({}): {}", id, content.getPath(),
+                        e.getMessage());
+            }
+        });
+        return true;
+    }
 
     @Transactional
     public File updateFileEntity(int id, File patch) {
         File mf = fileRepository.findById(id).orElse(null);
         if (mf == null) return null;
+        // L'entité peut déjà porter les nouvelles valeurs : delta inconnu, pools recalculés
+        poolStatsStore.invalidate(mf.getPool().getId());
+        publicResponseCache.poolChanged(mf.getPool().getId());
         if (patch.getName() != null) mf.setName(patch.getName());
         if (patch.getDescription() != null) mf.setDescription(patch.getDescription());
         if (patch.getExpirationDate() != null) mf.setExpirationDate(patch.getExpirationDate());
         if (patch.getPath() != null) mf.setPath(patch.getPath());
         if (patch.getPool() != null) mf.setPool(patch.getPool());
         if (patch.getUserUploader() != null) mf.setUserUploader(patch.getUserUploader());
+        if (patch.getBlobHash() != null && !patch.getBlobHash().equals(mf.getBlobHash())) {
+            // Contenu remplacé (voir replaceContent)
+            mf.setBlobHash(patch.getBlobHash());
+            mf.setStatus(patch.getStatus());
+        }
+        poolStatsStore.invalidate(mf.getPool().getId());
+        publicResponseCache.poolChanged(mf.getPool().getId());
+        fileContentCache.invalidate(id);
         return fileRepository.save(mf);
     }
 
-
-    private Session createSession() throws JSchException {
-        JSch jsch = new JSch();
-        jsch.addIdentity(sftpConfig.getPrivateKeyPath());
-        Session session = jsch.getSession(
-                sftpConfig.getUsername(),
-                sftpConfig.getHost(),
-                sftpConfig.getPort()
-        );
-        session.setConfig("StrictHostKeyChecking", "no");
-        session.setConfig("compression.s2c", "none");
-        session.setConfig("compression.c2s", "none");
-        session.connect();
-        return session;
-    }
-
-    private ChannelSftp openSftp(Session session) throws JSchException {
-        ChannelSftp ch = (ChannelSftp) session.openChannel("sftp");
-        ch.connect();
-        return ch;
-    }
-
-    public void ensureDirectory(ChannelSftp sftp, String absoluteDir) throws SftpException {
-        String[] parts = absoluteDir.split("/");
-        String path = "";
-        for (String p : parts) {
-            if (p == null || p.isBlank()) continue;
-            path += "/" + p;
+    /**
+     * Comme {@link #updateFileEntity(int, File)} pour un fichier dont le contenu a été remplacé
+     * ({@link #replaceContent}) : le nouveau contenu n'est enregistré que si l'ancien est encore
+     * en place, et l'ancien n'est libéré qu'une fois la mise à jour validée. Deux remplacements
+     * concurrents ne libèrent donc jamais deux fois le même contenu.
+     * Si elle échoue, que le fichier n'existe plus ou que son contenu a changé entre-temps (null),
+     * c'est à l'appelant de libérer le nouveau.
+     */
+    @Transactional
+    public File updateFileEntity(int id, File patch, File previousContent) {
+        // L'entité peut être celle du contexte (open-in-view) et porter déjà le nouveau contenu :
+        // détachée pour que le vidage avant la requête ne l'écrive pas sans condition
+        fileRepository.detach(patch);
+        if (fileRepository.swapContent(id, patch.getBlobHash(), patch.getPath(), patch.getStatus(),
+                previousContent.getPath(), previousContent.getStatus()) != 1) {
+            return null;
+        }
+        File updated = updateFileEntity(id, patch);
+        TransactionHooks.afterCommit(() -> {
             try {
-                sftp.cd(path);
-            } catch (SftpException e) {
-                sftp.mkdir(path);
-                sftp.cd(path);
+                releaseContent(previousContent);
+            } catch (Exception e) {
+                logger.warn("Ancien contenu du fichier {} non libéré ({}): {}", id,
+                        previousContent.getPath(), e.getMessage());
             }
-        }
+        });
+        return updated;
     }
 
+
     public String sanitizeFilename(String original) {
         if (original == null || original.isBlank()) return "unnamed";
         
@@ -135,78 +246,244 @@ public class FileService {
     }
 
     public void uploadToDir(String remoteDir, String filename, InputStream data) throws Exception {
-        long startTime = System.currentTimeMillis();
-        Session session = null;
-        ChannelSftp sftp = null;
-        try (InputStream in = data) {
-            long sessionStart = System.currentTimeMillis();
-            session = getSession();
+        storage.write(remoteDir + "/" + filename, data);
+    }
 
-            long sftpStart = System.currentTimeMillis();
-            sftp = openSftp(session);
+    public void deleteRemote(String remotePath) throws Exception {
+        storage.delete(remotePath);
+    }
 
-            long dirStart = System.currentTimeMillis();
-            ensureDirectory(sftp, remoteDir);
+    /**
+     * Stocke le contenu d'un nouveau fichier (dédupliqué) et y rattache {@code file}, sans
+     * l'enregistrer. Si l'enregistrement échoue, {@link #releaseContent} rend la référence.
+     */
+    public void storeContent(File file, InputStreamSource content) throws IOException {
+        attachBlob(file, blobService.store(content));
+    }
 
-            sftp.cd(remoteDir);
+    /** Comme {@link #storeContent(File, InputStreamSource)}, pour un flux lisible une seule fois. */
+    public void storeContent(File file, InputStream data) throws IOException {
+        attachBlob(file, blobService.store(data));
+    }
 
-            long putStart = System.currentTimeMillis();
-            sftp.put(in, filename);
-        } finally {
-            if (sftp != null) sftp.disconnect();
-            returnSession(session);
-        }
+    public void attachBlob(File file, BlobService.Digest digest) {
+        file.setBlobHash(digest.hash());
+        file.setPath(blobService.pathOf(digest.hash()));
     }
 
-    public void deleteRemote(String remotePath) throws Exception {
-        Session session = null;
-        ChannelSftp sftp = null;
-        try {
-            session = createSession();
-            sftp = openSftp(session);
-            try {
-                sftp.rm(remotePath);
-            } catch (SftpException ignore) {}
-        } finally {
-            if (sftp != null) sftp.disconnect();
-            if (session != null) session.disconnect();
+    /**
+     * Stocke le nouveau contenu d'un fichier existant et l'y rattache, sans enregistrer l'entité
+     * ni libérer l'ancien contenu, renvoyé pour {@link #updateFileEntity(int, File, File)}.
+     */
+    public File replaceContent(File file, InputStreamSource content) throws IOException {
+        File previous = contentOf(file);
+        storeContent(file, content);
+        file.setStatus(FileStatus.READY);
+        return previous;
+    }
+
+    /** Comme {@link #replaceContent(File, InputStreamSource)}, pour un flux lisible une seule fois. */
+    public File replaceContent(File file, InputStream data) throws IOException {
+        File previous = contentOf(file);
+        storeContent(file, data);
+        file.setStatus(FileStatus.READY);
+        return previous;
+    }
+
+    private static File contentOf(File file) {
+        File content = new File();
+        content.setPath(file.getPath());
+        content.setBlobHash(file.getBlobHash());
+        content.setStatus(file.getStatus());
+        return content;
+    }
+
+    /**
+     * Libère le contenu d'un fichier supprimé ou remplacé : la référence au blob est rendue ou,
+     * pour un fichier stocké à son propre chemin, le fichier distant est supprimé. Un fichier
+     * encore en transfert ne détient pas de référence ; c'est le transfert qui la rendra.
+     */
+    public void releaseContent(File file) throws Exception {
+        if (file.getBlobHash() == null) {
+            deleteRemote(file.getPath());
+        } else if (file.getStatus() == FileStatus.READY) {
+            blobService.release(file.getBlobHash());
         }
     }
 
+
     public RemoteStream getRemoteStream(String remotePath) throws Exception {
-        Session session = createSession();
-        ChannelSftp sftp = openSftp(session);
-        try {
-            SftpATTRS attrs = sftp.lstat(remotePath);
-            InputStream in = sftp.get(remotePath);
-            return new RemoteStream(in, attrs.getSize(), sftp, session);
-        } catch (Exception e) {
-            sftp.disconnect();
-            session.disconnect();
-            throw e;
+        StorageBackend.StoredObject stored = statRemote(remotePath);
+        return new RemoteStream(storage, remotePath, stored.size(), stored.lastModified());
+    }
+
+    /**
+     * Comme {@link #getRemoteStream(String)} mais adossé au cache disque : un fichier déjà en cache
+     * et inchangé (taille/mtime) est servi localement, sinon une lecture complète l'y dépose.
+     * Sans objet quand le stockage est lui-même local.
+     */
+    public RemoteStream getRemoteStream(File file) throws Exception {
+        if (storage.isLocal()) {
+            return getRemoteStream(file.getPath());
         }
+        StorageBackend.StoredObject stored = statRemote(file.getPath());
+        Path cached = fileContentCache.lookup(file.getId(), file.getPath(), stored.size(), stored.lastModified());
+        return new RemoteStream(storage, file.getPath(), stored.size(), stored.lastModified(),
+                fileContentCache, file.getId(), cached);
+    }
+
+    private StorageBackend.StoredObject statRemote(String remotePath) throws IOException {
+        StorageBackend.StoredObject stored = storage.stat(remotePath);
+        if (stored == null) throw new FileNotFoundException(remotePath);
+        return stored;
     }
 
-    public static class RemoteStream extends InputStreamResource {
+    /**
+     * Fichier stocké lisible par plages. Chaque appel à {@link #getInputStream()} renvoie un
+     * flux paresseux : le stockage n'est ouvert qu'à la première lecture, et un {@code skip}
+     * fait avant devient l'offset de lecture. Spring peut ainsi servir les requêtes
+     * {@code Range} (simples ou multiples) sans relire le début du fichier.
+     * La fermeture du flux (faite par Spring après l'écriture) libère le canal éventuel.
+     * Si une copie locale est présente dans le cache, elle est lue à la place du stockage.
+     */
+    public static class RemoteStream extends AbstractResource {
+        private final StorageBackend storage;
+        private final String path;
         private final long length;
-        private final ChannelSftp sftp;
-        private final Session session;
-        public RemoteStream(InputStream inputStream, long length, ChannelSftp sftp, Session session) {
-            super(inputStream);
+        private final long lastModified;
+        private final FileContentCache cache;
+        private final Integer fileId;
+        private final Path cached;
+
+        public RemoteStream(StorageBackend storage, String path, long length, long lastModified) {
+            this(storage, path, length, lastModified, null, null, null);
+        }
+
+        public RemoteStream(StorageBackend storage, String path, long length, long lastModified,
+                            FileContentCache cache, Integer fileId, Path cached) {
+            this.storage = storage;
+            this.path = path;
             this.length = length;
-            this.sftp = sftp;
-            this.session = session;
+            this.lastModified = lastModified;
+            this.cache = cache;
+            this.fileId = fileId;
+            this.cached = cached;
         }
+
         public long length() { return length; }
-        public void close() {
-            try { super.getInputStream().close(); } catch (Exception ignore) {}
-            try { sftp.disconnect(); } catch (Exception ignore) {}
-            try { session.disconnect(); } catch (Exception ignore) {}
+
+        @Override
+        public long contentLength() { return length; }
+
+        @Override
+        public long lastModified() { return lastModified; }
+
+        @Override
+        public String getDescription() { return "Stockage [" + path + "]"; }
+
+        @Override
+        public InputStream getInputStream() {
+            if (cached != null) {
+                try {
+                    return new FileContentCache.CachedFileInputStream(cached);
+                } catch (IOException ignore) {
+                    // évincé entre-temps : retour au stockage
+                }
+            }
+            InputStream remote = new RangeInputStream(storage, path, length);
+            return cache != null ? cache.fillWhileReading(fileId, path, length, lastModified, remote) : remote;
+        }
+
+        public String getETag() {
+            return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+
+        /**
+         * Évalue un en-tête {@code If-Range} : ETag fort identique ou date égale au Last-Modified.
+         */
+        public boolean matchesIfRange(String ifRange) {
+            if (ifRange == null || ifRange.isBlank()) return true;
+            String value = ifRange.trim();
+            if (value.startsWith("W/")) return false;
+            if (value.startsWith("\"")) return value.equals(getETag());
+            try {
+                long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return date / 1000 == lastModified / 1000;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Contenu complet sous forme d'{@link InputStreamResource} brute, que Spring ne découpe
+         * pas en plages (utilisé quand {@code If-Range} ne correspond plus).
+         */
+        public Resource fullContent() {
+            return new InputStreamResource(getInputStream());
         }
     }
 
+    private static class RangeInputStream extends InputStream {
+        private final StorageBackend storage;
+        private final String path;
+        private final long length;
+        private InputStream in;
+        private long offset;
+        private boolean closed;
+
+        RangeInputStream(StorageBackend storage, String path, long length) {
+            this.storage = storage;
+            this.path = path;
+            this.length = length;
+        }
+
+        private InputStream open() throws IOException {
+            if (closed) throw new IOException("Stream closed");
+            if (in == null) {
+                in = storage.read(path, offset);
+            }
+            return in;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (in == null) {
+                long skipped = Math.max(0, Math.min(n, length - offset));
+                offset += skipped;
+                return skipped;
+            }
+            return in.skip(n);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return open().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return open().read(b, off, len);
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            return open().transferTo(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            if (in != null) in.close();
+        }
+    }
+
+    public String buildPoolDirFor(int poolId) {
+        return sftpConfig.normalizedBaseDir() + "/pool" + poolId;
+    }
+
     public String buildRemoteDirFor(int poolId, int userId) {
-        return sftpConfig.normalizedBaseDir() + "/pool" + poolId + "/user" + userId;
+        return buildPoolDirFor(poolId) + "/user" + userId;
     }
 
     public void uploadFileToPoolUser(int poolId, int userId, MultipartFile file) throws Exception {
@@ -214,35 +491,4 @@ public class FileService {
         String filename = sanitizeFilename(file.getOriginalFilename());
         uploadToDir(remoteDir, filename, file.getInputStream());
     }
-
-    private Session getSession() throws JSchException {
-        Session session = sessionPool.poll();
-        if (session != null && session.isConnected()) {
-            return session;
-        }
-        // Si la session du pool n'est pas valide, créer une nouvelle
-        if (session != null) {
-            session.disconnect(); // Fermer la session invalide
-        }
-        JSch jsch = new JSch();
-        jsch.addIdentity(sftpConfig.getPrivateKeyPath());
-        session = jsch.getSession(
-                sftpConfig.getUsername(),
-                sftpConfig.getHost(),
-                sftpConfig.getPort()
-        );
-        session.setConfig("StrictHostKeyChecking", "no");
-        session.setConfig("compression.s2c", "none");
-        session.setConfig("compression.c2s", "none");
-        session.connect();
-        return session;
-    }
-
-    private void returnSession(Session session) {
-        if (session != null && session.isConnected() && sessionPool.size() < MAX_POOL_SIZE) {
-            sessionPool.offer(session);
-        } else {
-            if (session != null) session.disconnect();
-        }
-    }
 }
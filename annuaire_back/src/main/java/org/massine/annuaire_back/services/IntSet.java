@@ -0,0 +1,107 @@
+package org.massine.annuaire_back.services;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble d'entiers sans boxing : table à adressage ouvert (sondage linéaire), taille puissance
+ * de deux, remplie au plus à moitié. Non synchronisé.
+ */
+public final class IntSet {
+
+    private static final int EMPTY = 0;
+
+    private int[] slots;
+    private int mask;
+    private int size;
+    /** 0 sert de marqueur de case vide : sa présence est suivie à part */
+    private boolean hasZero;
+
+    public IntSet() {
+        this(8);
+    }
+
+    public IntSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public static IntSet of(int[] values) {
+        IntSet set = new IntSet(values.length);
+        for (int v : values) {
+            set.add(v);
+        }
+        return set;
+    }
+
+    /**
+     * @return true si la valeur n'était pas déjà présente
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = indexOf(value);
+        if (slots[i] == value) return false;
+        slots[i] = value;
+        if (++size * 2 > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) return hasZero;
+        return slots[indexOf(value)] == value;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    /** Valeurs dans un ordre quelconque. */
+    public int[] toArray() {
+        int[] out = new int[size];
+        int n = 0;
+        if (hasZero) out[n++] = EMPTY;
+        for (int v : slots) {
+            if (v != EMPTY) out[n++] = v;
+        }
+        return out;
+    }
+
+    /** Case de la valeur, ou case vide où l'insérer. */
+    private int indexOf(int value) {
+        int i = mix(value) & mask;
+        while (slots[i] != EMPTY && slots[i] != value) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        mask = slots.length - 1;
+        for (int v : old) {
+            if (v != EMPTY) {
+                slots[indexOf(v)] = v;
+            }
+        }
+    }
+
+    static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        int[] values = toArray();
+        Arrays.sort(values);
+        return Arrays.toString(values);
+    }
+}
@@ -2,16 +2,19 @@ package org.massine.annuaire_back.services;
 
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
@@ -22,6 +25,27 @@ public class JwtService {
 
     private final long EXPIRATION_TIME = 1000 * 60 * 60 * 24;
 
+    private static final int MAX_VERIFIED_TOKENS = 10_000;
+
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Tokens dont la signature HMAC a déjà été vérifiée, jusqu'à leur expiration ; au-delà de
+    // MAX_VERIFIED_TOKENS, le moins récemment utilisé est oublié (LRU, protégé par lui-même)
+    private final LinkedHashMap<String, ValidatedToken> verifiedTokens = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ValidatedToken> eldest) {
+            return size() > MAX_VERIFIED_TOKENS;
+        }
+    };
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
 
     public String generateToken(Integer userId, String email, String role) {
         Map<String, Object> claims = new HashMap<>();
@@ -39,46 +63,45 @@ public class JwtService {
     }
 
 
+    /**
+     * Vérifie le token une seule fois (signature + expiration) et renvoie ses claims.
+     * Un token déjà vérifié et non expiré est servi depuis le cache sans recalcul HMAC.
+     */
+    public ValidatedToken validate(String token) {
+        synchronized (verifiedTokens) {
+            ValidatedToken cached = verifiedTokens.get(token);
+            if (cached != null) {
+                if (!cached.isExpired()) return cached;
+                verifiedTokens.remove(token);
+            }
+        }
+
+        ValidatedToken validated = new ValidatedToken(parser.parseClaimsJws(token).getBody());
+        if (validated.getExpiration() != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(token, validated);
+            }
+        }
+        return validated;
+    }
+
     public String extractEmail(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.getSubject();
+        return validate(token).getEmail();
     }
 
 
     public Integer extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("userId", Integer.class);
+        return validate(token).getUserId();
     }
 
 
     public boolean isTokenValid(String token, String email) {
-        final String tokenEmail = extractEmail(token);
-        return (tokenEmail.equals(email) && !isTokenExpired(token));
-    }
-
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-
-    private Date extractExpiration(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.getExpiration();
-    }
-
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        ValidatedToken validated = validate(token);
+        return email.equals(validated.getEmail()) && !validated.isExpired();
     }
 
     private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     public String generateToken(Integer userId) {
@@ -106,10 +129,29 @@ public class JwtService {
     }
 
     public Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return validate(token).getClaims();
+    }
+
+    /**
+     * Résultat d'une vérification de token, réutilisable pendant toute la requête.
+     */
+    public static class ValidatedToken {
+        private final Claims claims;
+        private final Date expiration;
+
+        ValidatedToken(Claims claims) {
+            this.claims = claims;
+            this.expiration = claims.getExpiration();
+        }
+
+        public Claims getClaims() { return claims; }
+        public String getEmail() { return claims.getSubject(); }
+        public Integer getUserId() { return claims.get("userId", Integer.class); }
+        public String getRole() { return claims.get("role", String.class); }
+        public Date getExpiration() { return expiration; }
+
+        public boolean isExpired() {
+            return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+        }
     }
 }
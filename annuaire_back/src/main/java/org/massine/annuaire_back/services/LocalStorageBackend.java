@@ -0,0 +1,123 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.config.StorageConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Stockage sur le disque local, sous {@code storage.local-root}. Les téléchargements lisent le
+ * fichier par un {@link FileChannel} et une écriture complète est rendue visible d'un coup par
+ * renommage atomique.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public LocalStorageBackend(StorageConfig storageConfig) throws IOException {
+        this.root = Paths.get(storageConfig.getLocalRoot()).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+
+    @Override
+    public void write(String path, InputStream data) throws IOException {
+        Path target = resolve(path);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".write-", ".tmp");
+        try (InputStream in = data) {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public void append(String path, InputStream data) throws IOException {
+        Path target = resolve(path);
+        Files.createDirectories(target.getParent());
+        try (InputStream in = data;
+             ReadableByteChannel src = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.APPEND)) {
+            long n;
+            do {
+                n = out.transferFrom(src, out.size(), 1 << 20);
+            } while (n > 0);
+        }
+    }
+
+    @Override
+    public StoredObject stat(String path) throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(resolve(path), BasicFileAttributes.class);
+            return new StoredObject(attrs.size(), attrs.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream read(String path, long offset) throws IOException {
+        InputStream in = new FileContentCache.CachedFileInputStream(resolve(path));
+        in.skip(offset);
+        return in;
+    }
+
+    @Override
+    public void move(String from, String to) throws IOException {
+        Path target = resolve(to);
+        Files.createDirectories(target.getParent());
+        Files.move(resolve(from), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+        Files.deleteIfExists(resolve(path));
+    }
+
+    @Override
+    public long deleteTree(String dir, Runnable onFileDeleted) throws IOException {
+        Path top = resolve(dir);
+        if (!Files.isDirectory(top)) return 0;
+        long[] deleted = {0};
+        Files.walkFileTree(top, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                deleted[0]++;
+                onFileDeleted.run();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+                if (e != null) throw e;
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return deleted[0];
+    }
+
+    @Override
+    public boolean isLocal() { return true; }
+
+    private Path resolve(String path) throws IOException {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        Path p = root.resolve(relative).normalize();
+        if (!p.startsWith(root) || p.equals(root)) {
+            throw new IOException("Chemin hors du stockage: " + path);
+        }
+        return p;
+    }
+}
@@ -0,0 +1,86 @@
+package org.massine.annuaire_back.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stockage en mémoire, dans le processus, pour les tests de charge : aucun disque ni réseau,
+ * le contenu est perdu à l'arrêt.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "memory")
+public class MemoryStorageBackend implements StorageBackend {
+
+    private record Blob(byte[] data, long lastModified) {}
+
+    private final ConcurrentHashMap<String, Blob> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void write(String path, InputStream data) throws IOException {
+        try (InputStream in = data) {
+            blobs.put(path, new Blob(in.readAllBytes(), System.currentTimeMillis()));
+        }
+    }
+
+    @Override
+    public void append(String path, InputStream data) throws IOException {
+        byte[] extra;
+        try (InputStream in = data) {
+            extra = in.readAllBytes();
+        }
+        blobs.merge(path, new Blob(extra, System.currentTimeMillis()), (old, add) -> {
+            byte[] joined = Arrays.copyOf(old.data, old.data.length + add.data.length);
+            System.arraycopy(add.data, 0, joined, old.data.length, add.data.length);
+            return new Blob(joined, add.lastModified);
+        });
+    }
+
+    @Override
+    public StoredObject stat(String path) {
+        Blob b = blobs.get(path);
+        return b == null ? null : new StoredObject(b.data.length, b.lastModified);
+    }
+
+    @Override
+    public InputStream read(String path, long offset) throws IOException {
+        Blob b = blobs.get(path);
+        if (b == null) throw new NoSuchFileException(path);
+        int start = (int) Math.min(offset, b.data.length);
+        return new ByteArrayInputStream(b.data, start, b.data.length - start);
+    }
+
+    @Override
+    public void move(String from, String to) throws IOException {
+        Blob b = blobs.remove(from);
+        if (b == null) throw new NoSuchFileException(from);
+        blobs.put(to, b);
+    }
+
+    @Override
+    public void delete(String path) {
+        blobs.remove(path);
+    }
+
+    @Override
+    public long deleteTree(String dir, Runnable onFileDeleted) {
+        String prefix = dir + "/";
+        long deleted = 0;
+        for (String path : blobs.keySet()) {
+            if (path.startsWith(prefix) && blobs.remove(path) != null) {
+                deleted++;
+                onFileDeleted.run();
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean isLocal() { return true; }
+}
@@ -0,0 +1,229 @@
+package org.massine.annuaire_back.services;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture incrémentale d'un corps {@code multipart/form-data}, partie par partie, sans passer
+ * par le stockage temporaire du conteneur. Le contenu d'une partie est exposé comme un flux lu
+ * directement depuis la requête au travers d'un tampon fixe : c'est le consommateur (ex: le
+ * {@code put} SFTP) qui fixe le rythme de lecture du réseau.
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_SIZE = 16 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean finished;
+    private PartInputStream current;
+
+    public MultipartStreamReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buf = new byte[Math.max(BUFFER_SIZE, delimiter.length * 4)];
+        // Le premier délimiteur n'est pas précédé de CRLF : on l'ajoute pour traiter tous les cas pareil
+        buf[0] = '\r';
+        buf[1] = '\n';
+        this.limit = 2;
+        this.current = new PartInputStream();
+    }
+
+    /**
+     * @return le boundary du type de contenu, ou null si ce n'est pas du multipart/form-data
+     */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null) return null;
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            if (!MediaType.MULTIPART_FORM_DATA.includes(type)) return null;
+            String boundary = type.getParameter("boundary");
+            if (boundary == null || boundary.isEmpty()) return null;
+            if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                boundary = boundary.substring(1, boundary.length() - 1);
+            }
+            return boundary;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Passe à la partie suivante ; le reste de la partie courante est ignoré.
+     * @return la partie, ou null à la fin du corps
+     */
+    public Part next() throws IOException {
+        if (finished) return null;
+        current.skipAll();
+        if (!ensure(2)) throw new IOException("Corps multipart tronqué");
+        if (buf[pos] == '-' && buf[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        String headers = readHeaders();
+        String disposition = null;
+        String contentType = null;
+        for (String line : headers.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) continue;
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Disposition")) disposition = value;
+            else if (name.equalsIgnoreCase("Content-Type")) contentType = value;
+        }
+        if (disposition == null) throw new IOException("Partie sans Content-Disposition");
+        ContentDisposition cd = ContentDisposition.parse(disposition);
+        current = new PartInputStream();
+        return new Part(cd.getName(), cd.getFilename(), contentType, current);
+    }
+
+    /** Lit les en-têtes de la partie, y compris la fin de la ligne du délimiteur. */
+    private String readHeaders() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Fin de ligne du délimiteur (éventuels espaces puis CRLF)
+        while (true) {
+            if (!ensure(1)) throw new IOException("Corps multipart tronqué");
+            byte b = buf[pos++];
+            if (b == '\n') break;
+        }
+        int matched = 0;
+        byte[] end = {'\r', '\n', '\r', '\n'};
+        while (true) {
+            if (!ensure(1)) throw new IOException("Corps multipart tronqué");
+            byte b = buf[pos++];
+            out.write(b);
+            if (out.size() > MAX_HEADER_SIZE) throw new IOException("En-têtes de partie trop longs");
+            matched = b == end[matched] ? matched + 1 : (b == '\r' ? 1 : 0);
+            if (matched == 4) break;
+            // Partie sans en-tête : CRLF immédiat
+            if (out.size() == 2 && matched == 2) break;
+        }
+        return out.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    /** Garantit {@code n} octets disponibles dans le tampon ; false si le flux se termine avant. */
+    private boolean ensure(int n) throws IOException {
+        while (limit - pos < n) {
+            if (eof) return false;
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            }
+            int r = in.read(buf, limit, buf.length - limit);
+            if (r < 0) eof = true;
+            else limit += r;
+        }
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        outer:
+        for (int i = pos; i <= limit - delimiter.length; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buf[i + j] != delimiter[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Une partie du corps. Le contenu n'est lisible que jusqu'à l'appel suivant de
+     * {@link MultipartStreamReader#next()}.
+     */
+    public record Part(String name, String filename, String contentType, InputStream body) {
+
+        public boolean isFile() { return filename != null; }
+
+        /** Contenu dont la lecture échoue au-delà de {@code maxBytes}. */
+        public InputStream body(long maxBytes) {
+            return new FilterInputStream(body) {
+                private long count;
+
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) check(1);
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) check(n);
+                    return n;
+                }
+
+                private void check(int n) throws IOException {
+                    count += n;
+                    if (count > maxBytes) throw new IOException("Fichier " + filename + " trop volumineux");
+                }
+            };
+        }
+
+        /** Valeur d'un champ texte, bornée à {@code maxBytes}. */
+        public String text(int maxBytes) throws IOException {
+            byte[] data = body.readNBytes(maxBytes + 1);
+            if (data.length > maxBytes) throw new IOException("Champ " + name + " trop long");
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+
+    private class PartInputStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) return -1;
+            if (len == 0) return 0;
+            ensure(delimiter.length);
+            int at = indexOfDelimiter();
+            int available;
+            if (at == pos) {
+                pos += delimiter.length;
+                done = true;
+                return -1;
+            } else if (at >= 0) {
+                available = at - pos;
+            } else {
+                // Les derniers octets peuvent être le début du délimiteur
+                available = limit - pos - (delimiter.length - 1);
+                if (available <= 0) {
+                    if (eof) throw new IOException("Corps multipart tronqué");
+                    ensure(limit - pos + 1);
+                    return read(b, off, len);
+                }
+            }
+            int n = Math.min(len, available);
+            System.arraycopy(buf, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        void skipAll() throws IOException {
+            byte[] scratch = new byte[8192];
+            while (read(scratch, 0, scratch.length) >= 0) {
+                // ignoré
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.dto.PoolDeletionStatusDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nettoyage en arrière-plan du contenu des pools supprimés : les références aux blobs sont
+ * rendues, l'arborescence {@code pool<id>/} est supprimée du stockage (sur un seul canal pour
+ * le SFTP) et le cache disque est purgé. Les lignes en base sont déjà supprimées (voir
+ * {@link PoolService#deletePoolById}) : la requête HTTP n'attend pas le stockage.
+ * L'avancement reste consultable une heure après la fin.
+ */
+@Service
+public class PoolDeletionService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoolDeletionService.class);
+    private static final Duration RETENTION = Duration.ofHours(1);
+
+    private final StorageBackend storage;
+    private final BlobService blobService;
+    private final FileService fileService;
+    private final FileContentCache fileContentCache;
+    private final ConcurrentHashMap<Integer, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    public PoolDeletionService(StorageBackend storage, BlobService blobService, FileService fileService,
+                               FileContentCache fileContentCache) {
+        this.storage = storage;
+        this.blobService = blobService;
+        this.fileService = fileService;
+        this.fileContentCache = fileContentCache;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "pool-deletion");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Planifie le nettoyage après validation de la transaction courante.
+     * @param fileIds fichiers supprimés (purge du cache disque)
+     * @param blobReferences références aux blobs détenues par ces fichiers : [hash, nombre]
+     */
+    public PoolDeletionStatusDTO submit(int poolId, int requestedBy, int[] fileIds, List<Object[]> blobReferences) {
+        Job job = new Job(poolId, requestedBy, fileIds, blobReferences);
+        TransactionHooks.afterCommit(() -> {
+            purgeFinished();
+            jobs.put(poolId, job);
+            executor.execute(() -> run(job));
+        });
+        return job.status();
+    }
+
+    /**
+     * @return l'avancement, ou null si aucune suppression récente de ce pool
+     */
+    public PoolDeletionStatusDTO status(int poolId) {
+        Job job = jobs.get(poolId);
+        return job == null ? null : job.status();
+    }
+
+    /** Utilisateur qui a demandé la suppression, ou null. */
+    public Integer requestedBy(int poolId) {
+        Job job = jobs.get(poolId);
+        return job == null ? null : job.requestedBy;
+    }
+
+    private void run(Job job) {
+        job.state = "RUNNING";
+        String error = null;
+        for (Object[] ref : job.blobReferences) {
+            try {
+                blobService.release((String) ref[0], ((Number) ref[1]).intValue());
+                job.blobsReleased.incrementAndGet();
+            } catch (Exception e) {
+                error = e.getMessage();
+                logger.warn("Pool {} : référence au contenu {} non rendue: {}", job.poolId, ref[0], e.getMessage());
+            }
+        }
+        for (int fileId : job.fileIds) {
+            fileContentCache.invalidate(fileId);
+        }
+        try {
+            storage.deleteTree(fileService.buildPoolDirFor(job.poolId), job.remoteFilesDeleted::incrementAndGet);
+        } catch (Exception e) {
+            error = e.getMessage();
+            logger.warn("Pool {} : suppression du répertoire distant en échec: {}", job.poolId, e.getMessage());
+        }
+        job.error = error;
+        job.finishedAt = Instant.now();
+        job.state = error == null ? "DONE" : "FAILED";
+        logger.info("Pool {} nettoyé : {} blobs, {} fichiers distants", job.poolId, job.blobsReleased.get(),
+                job.remoteFilesDeleted.get());
+    }
+
+    private void purgeFinished() {
+        Instant limit = Instant.now().minus(RETENTION);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(limit));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class Job {
+        private final int poolId;
+        private final int requestedBy;
+        private final int[] fileIds;
+        private final List<Object[]> blobReferences;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger blobsReleased = new AtomicInteger();
+        private final AtomicLong remoteFilesDeleted = new AtomicLong();
+        private volatile String state = "PENDING";
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        Job(int poolId, int requestedBy, int[] fileIds, List<Object[]> blobReferences) {
+            this.poolId = poolId;
+            this.requestedBy = requestedBy;
+            this.fileIds = fileIds;
+            this.blobReferences = blobReferences;
+        }
+
+        PoolDeletionStatusDTO status() {
+            return new PoolDeletionStatusDTO(poolId, state, fileIds.length, blobReferences.size(),
+                    blobsReleased.get(), remoteFilesDeleted.get(), startedAt, finishedAt, error);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package org.massine.annuaire_back.services;
 
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.PoolDeletionStatusDTO;
+import org.massine.annuaire_back.dto.PublicPoolDTO;
+import org.massine.annuaire_back.models.FileStatus;
 import org.massine.annuaire_back.models.Pool;
 import org.massine.annuaire_back.models.Access;
 import org.massine.annuaire_back.repositories.PoolRepository;
 import org.massine.annuaire_back.repositories.AccessRepository;
 import org.massine.annuaire_back.repositories.FileRepository;
+import org.massine.annuaire_back.repositories.UploadSessionRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,17 +21,34 @@ public class PoolService {
     private final PoolRepository poolRepository;
     private final AccessRepository accessRepository;
     private final FileRepository fileRepository;
+    private final PoolStatsStore poolStatsStore;
+    private final PublicResponseCache publicResponseCache;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final PoolDeletionService poolDeletionService;
+    private final AccessIndex accessIndex;
 
-    public PoolService(PoolRepository poolRepository, AccessRepository accessRepository, FileRepository fileRepository) {
+    public PoolService(PoolRepository poolRepository, AccessRepository accessRepository, FileRepository fileRepository,
+                       PoolStatsStore poolStatsStore, PublicResponseCache publicResponseCache,
+                       UploadSessionRepository uploadSessionRepository, PoolDeletionService poolDeletionService,
+                       AccessIndex accessIndex) {
         this.poolRepository = poolRepository;
         this.accessRepository = accessRepository;
         this.fileRepository = fileRepository;
+        this.poolStatsStore = poolStatsStore;
+        this.publicResponseCache = publicResponseCache;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.poolDeletionService = poolDeletionService;
+        this.accessIndex = accessIndex;
     }
 
     public List<Pool> getAllPools() {
         return poolRepository.findAll();
     }
 
+    public KeysetPage<PublicPoolDTO> getPublicPools(String sort, boolean descending, String after, int limit) {
+        return poolRepository.findPublicCatalog(sort, descending, after, limit);
+    }
+
     public long getPoolsCount() {
         return poolRepository.count();
     }
@@ -35,22 +57,45 @@ public class PoolService {
         return poolRepository.findById(id);
     }
     public Pool savePool(Pool pool) {
-        return poolRepository.save(pool);
+        Pool saved = poolRepository.save(pool);
+        publicResponseCache.poolChanged(saved.getId());
+        return saved;
     }
 
+    /**
+     * Supprime le pool et ses lignes (accès, fichiers, envois en cours) par requêtes groupées ;
+     * le contenu stocké est nettoyé ensuite en arrière-plan par {@link PoolDeletionService}.
+     */
     @Transactional
-    public void deletePoolById(int id) {
-        accessRepository.findByPoolId(id).forEach(access -> accessRepository.delete(access));
-
-        fileRepository.findByPoolId(id).forEach(file -> fileRepository.delete(file));
+    public PoolDeletionStatusDTO deletePoolById(int id, int requestedBy) {
+        // Références comptées sur les lignes verrouillées : une suppression de fichier concurrente
+        // attend la fin de celle-ci et ne rend pas une seconde fois la même référence
+        List<Object[]> files = fileRepository.lockContentByPoolId(id);
+        int[] fileIds = files.stream().mapToInt(f -> (Integer) f[0]).toArray();
+        List<Object[]> blobReferences = files.stream()
+                .filter(f -> f[1] != null && f[2] == FileStatus.READY)
+                .collect(Collectors.groupingBy(f -> (String) f[1], Collectors.counting()))
+                .entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue()})
+                .toList();
 
+        accessRepository.deleteAllInPool(id);
+        fileRepository.deleteAllInPool(id);
+        uploadSessionRepository.deleteAllInPool(id);
         poolRepository.deleteById(id);
+
+        poolStatsStore.poolDeleted(id);
+        publicResponseCache.poolChanged(id);
+        TransactionHooks.afterCommit(() -> accessIndex.poolDeleted(id));
+        return poolDeletionService.submit(id, requestedBy, fileIds, blobReferences);
     }
     public Pool updatePool(int id,Pool pool) {
         Pool modifiedPool = poolRepository.findById(id);
         modifiedPool.setName(pool.getName());
         modifiedPool.setDescription(pool.getDescription());
-        return poolRepository.save(modifiedPool);
+        Pool saved = poolRepository.save(modifiedPool);
+        publicResponseCache.poolChanged(id);
+        return saved;
     }
 
     public List<Pool> getAllPoolsByUserId(int userId) {
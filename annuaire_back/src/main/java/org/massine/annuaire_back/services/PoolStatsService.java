@@ -0,0 +1,155 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.dto.FileSummaryDTO;
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.PoolDTO;
+import org.massine.annuaire_back.dto.UploaderStatDTO;
+import org.massine.annuaire_back.dto.UserResponseDTO;
+import org.massine.annuaire_back.models.Pool;
+import org.massine.annuaire_back.models.User;
+import org.massine.annuaire_back.repositories.AccessRepository;
+import org.massine.annuaire_back.repositories.FileRepository;
+import org.massine.annuaire_back.repositories.UserRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Statistiques d'un pool. Les compteurs viennent de {@link PoolStatsStore} (matérialisés) ;
+ * seuls quelques détails indexés sont lus en base. Les listes complètes (membres, accès,
+ * fichiers) ne sont renvoyées qu'à la demande, paginées par clé.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PoolStatsService {
+
+    public static final Set<String> LISTS = Set.of("members", "inactiveMembers", "accesses", "files");
+    private static final int TOP_UPLOADERS = 5;
+
+    private final AccessRepository accessRepository;
+    private final FileRepository fileRepository;
+    private final UserRepository userRepository;
+    private final PoolStatsStore poolStatsStore;
+
+    public PoolStatsService(AccessRepository accessRepository, FileRepository fileRepository,
+                            UserRepository userRepository, PoolStatsStore poolStatsStore) {
+        this.accessRepository = accessRepository;
+        this.fileRepository = fileRepository;
+        this.userRepository = userRepository;
+        this.poolStatsStore = poolStatsStore;
+    }
+
+    /**
+     * @param include listes à joindre (voir {@link #LISTS}), première page de {@code listLimit} éléments
+     */
+    public Map<String, Object> getStats(Pool pool, Set<String> include, int listLimit) {
+        int poolId = pool.getId();
+        Map<String, Object> stats = new HashMap<>();
+
+        // ==================== INFOS DE BASE ====================
+        stats.put("pool", PoolDTO.of(pool));
+
+        PoolStatsStore.Snapshot counters = poolStatsStore.get(poolId);
+
+        // ==================== STATS MEMBRES ====================
+        long membersCount = counters.membersCount();
+        stats.put("membersCount", membersCount);
+        stats.put("roleDistribution", counters.roleDistribution());
+        stats.put("userRoleDistribution", toCountMap(accessRepository.countUserRolesByPool(poolId)));
+
+        // ==================== STATS FICHIERS ====================
+        long filesCount = counters.filesCount();
+        stats.put("filesCount", filesCount);
+
+        List<UploaderStatDTO> topUploaders = topUploaders(counters);
+        stats.put("topUploaders", topUploaders);
+        stats.put("mostActiveMembers", topUploaders);
+        stats.put("filesPerDay", counters.filesPerDay());
+        stats.put("fileExtensions", counters.fileExtensions());
+        stats.put("lastUploadAt", counters.lastUploadAt());
+
+        List<FileSummaryDTO> last = filesCount == 0 ? List.of()
+                : fileRepository.findPoolSummaries(poolId, "createdAt", true, null, 1).getItems();
+        stats.put("lastFile", last.isEmpty() ? null : last.get(0));
+
+        // ==================== STATS ACTIVITÉ ====================
+        long inactiveCount = counters.inactiveMembersCount();
+        stats.put("inactiveMembersCount", inactiveCount);
+
+        // ==================== STATS TEMPORELLES ====================
+        stats.put("poolCreatedAt", pool.getCreatedAt());
+        long poolAgeInDays = 0;
+        if (pool.getCreatedAt() != null) {
+            poolAgeInDays = ChronoUnit.DAYS.between(pool.getCreatedAt(), Instant.now());
+        }
+        stats.put("poolAgeInDays", poolAgeInDays);
+        stats.put("newestMember", first(accessRepository.findNewestMembers(poolId, Limit.of(1))));
+        stats.put("oldestMember", first(accessRepository.findOldestMembers(poolId, Limit.of(1))));
+
+        // ==================== STATS AVANCÉES ====================
+        double avgFilesPerMember = membersCount == 0 ? 0 : (double) filesCount / membersCount;
+        stats.put("avgFilesPerMember", Math.round(avgFilesPerMember * 100.0) / 100.0);
+        double activityRate = membersCount == 0 ? 0 :
+                ((double) (membersCount - inactiveCount) / membersCount * 100);
+        stats.put("activityRate", Math.round(activityRate * 100.0) / 100.0);
+
+        if (pool.getCreatedBy() != null) {
+            Optional<User> creator = userRepository.findById((int) pool.getCreatedBy());
+            stats.put("creator", creator.map(UserResponseDTO::new).orElse(null));
+        }
+
+        // ==================== LISTES (optionnelles) ====================
+        for (String list : include) {
+            KeysetPage<?> page = getList(poolId, list, null, listLimit);
+            stats.put(list, page.getItems());
+            stats.put(list + "NextCursor", page.getNextCursor());
+        }
+        return stats;
+    }
+
+    /**
+     * Page d'une des listes détaillées d'un pool.
+     * @throws IllegalArgumentException liste inconnue ou curseur invalide
+     */
+    public KeysetPage<?> getList(int poolId, String list, String after, int limit) {
+        return switch (list) {
+            case "members" -> userRepository.findPoolMembers(poolId, false, after, limit);
+            case "inactiveMembers" -> userRepository.findPoolMembers(poolId, true, after, limit);
+            case "accesses" -> accessRepository.findPoolSummaries(poolId, after, limit);
+            case "files" -> fileRepository.findPoolSummaries(poolId, "createdAt", true, after, limit);
+            default -> throw new IllegalArgumentException("Liste inconnue : " + list);
+        };
+    }
+
+    private List<UploaderStatDTO> topUploaders(PoolStatsStore.Snapshot counters) {
+        List<Map.Entry<Integer, Long>> top = counters.topUploaders(TOP_UPLOADERS);
+        if (top.isEmpty()) return List.of();
+        Map<Integer, User> users = new HashMap<>();
+        userRepository.findAllById(top.stream().map(Map.Entry::getKey).toList())
+                .forEach(u -> users.put(u.getId(), u));
+        List<UploaderStatDTO> result = new ArrayList<>();
+        for (Map.Entry<Integer, Long> e : top) {
+            User u = users.get(e.getKey());
+            if (u != null) {
+                result.add(new UploaderStatDTO(u.getId(), u.getFirstName(), u.getLastName(), u.getEmail(), e.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Long> toCountMap(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[0] != null) counts.put(row[0].toString(), (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private static <T> T first(List<T> list) {
+        return list.isEmpty() ? null : list.get(0);
+    }
+}
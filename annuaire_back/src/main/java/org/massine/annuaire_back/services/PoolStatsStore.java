@@ -0,0 +1,319 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.repositories.AccessRepository;
+import org.massine.annuaire_back.repositories.FileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistiques matérialisées par pool, tenues en mémoire et mises à jour de façon incrémentale
+ * à chaque ajout/suppression de fichier ou d'accès. Un pool absent (ou marqué périmé quand le
+ * delta n'est pas connu, ex: renommage) est rechargé depuis la base par deux requêtes groupées.
+ * Un job de réparation recalcule périodiquement tous les pools depuis les tables sources et
+ * compte les écarts constatés.
+ */
+@Service
+public class PoolStatsStore implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoolStatsStore.class);
+
+    static final String NO_EXTENSION = "sans extension";
+
+    private final FileRepository fileRepository;
+    private final AccessRepository accessRepository;
+    private final ConcurrentHashMap<Integer, PoolCounters> pools = new ConcurrentHashMap<>();
+    // Numéro d'écriture par pool : permet de détecter un delta arrivé pendant un rechargement
+    private final ConcurrentHashMap<Integer, Long> writeSeq = new ConcurrentHashMap<>();
+    private final Counter drift;
+    private final ScheduledExecutorService repairExecutor;
+    private final Duration repairInterval;
+
+    public PoolStatsStore(FileRepository fileRepository,
+                          AccessRepository accessRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${pool-stats.repair-interval:1h}") Duration repairInterval) {
+        this.fileRepository = fileRepository;
+        this.accessRepository = accessRepository;
+        this.repairInterval = repairInterval;
+
+        this.drift = Counter.builder("pool.stats.drift")
+                .description("Pools dont les statistiques matérialisées différaient des tables sources")
+                .register(meterRegistry);
+        Gauge.builder("pool.stats.pools", pools, Map::size)
+                .description("Pools dont les statistiques sont matérialisées")
+                .register(meterRegistry);
+
+        this.repairExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-stats-repair");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Planifié une fois le bean construit, pour que {@link #repair} ne voie jamais un état partiel. */
+    @PostConstruct
+    void startRepairs() {
+        // Premier passage immédiat : reconstruction complète au démarrage
+        repairExecutor.scheduleWithFixedDelay(this::repair, 0, repairInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Statistiques courantes d'un pool, rechargées depuis la base si absentes ou périmées.
+     */
+    public Snapshot get(int poolId) {
+        PoolCounters c = pools.get(poolId);
+        if (c == null || c.stale) {
+            c = reload(poolId);
+        }
+        return c.snapshot();
+    }
+
+    public void fileAdded(int poolId, int uploaderId, Instant createdAt, String name) {
+        apply(poolId, c -> c.addFile(uploaderId, createdAt, name, 1));
+    }
+
+    public void fileRemoved(int poolId, int uploaderId, Instant createdAt, String name) {
+        apply(poolId, c -> c.addFile(uploaderId, createdAt, name, -1));
+    }
+
+    public void accessAdded(int poolId, int userId, String role) {
+        apply(poolId, c -> c.addAccess(userId, role, 1));
+    }
+
+    public void accessRemoved(int poolId, int userId, String role) {
+        apply(poolId, c -> c.addAccess(userId, role, -1));
+    }
+
+    /**
+     * Modification dont le delta n'est pas connu : le pool sera recalculé à la prochaine lecture.
+     */
+    public void invalidate(int poolId) {
+        apply(poolId, c -> c.stale = true);
+    }
+
+    public void invalidateAll() {
+        TransactionHooks.afterCommit(() -> pools.keySet().forEach(id -> {
+            writeSeq.merge(id, 1L, Long::sum);
+            PoolCounters c = pools.get(id);
+            if (c != null) c.stale = true;
+        }));
+    }
+
+    public void poolDeleted(int poolId) {
+        TransactionHooks.afterCommit(() -> {
+            pools.remove(poolId);
+            writeSeq.remove(poolId);
+        });
+    }
+
+    /**
+     * Les deltas ne sont appliqués qu'une fois la transaction validée.
+     */
+    private void apply(int poolId, java.util.function.Consumer<PoolCounters> delta) {
+        TransactionHooks.afterCommit(() -> {
+            writeSeq.merge(poolId, 1L, Long::sum);
+            PoolCounters c = pools.get(poolId);
+            if (c != null) {
+                synchronized (c) {
+                    delta.accept(c);
+                }
+            }
+        });
+    }
+
+    private PoolCounters reload(int poolId) {
+        long seq = writeSeq.getOrDefault(poolId, 0L);
+        PoolCounters fresh = new PoolCounters(seq);
+        fileRepository.aggregateForStats(poolId).forEach(fresh::loadFileRow);
+        accessRepository.aggregateForStats(poolId).forEach(fresh::loadAccessRow);
+        install(poolId, fresh);
+        return fresh;
+    }
+
+    private void install(int poolId, PoolCounters fresh) {
+        pools.put(poolId, fresh);
+        if (writeSeq.getOrDefault(poolId, 0L) != fresh.seq) {
+            fresh.stale = true;
+        }
+    }
+
+    /**
+     * Recalcule tous les pools depuis les tables sources (deux requêtes groupées sur l'ensemble
+     * des pools) et remplace les compteurs matérialisés, en comptant ceux qui avaient divergé.
+     */
+    void repair() {
+        try {
+            Map<Integer, Long> seqs = new HashMap<>(writeSeq);
+            Map<Integer, PoolCounters> fresh = new HashMap<>();
+            for (Object[] row : fileRepository.aggregateAllForStats()) {
+                int poolId = (Integer) row[0];
+                fresh.computeIfAbsent(poolId, id -> new PoolCounters(seqs.getOrDefault(id, 0L))).loadFileRow(row);
+            }
+            for (Object[] row : accessRepository.aggregateAllForStats()) {
+                int poolId = (Integer) row[0];
+                fresh.computeIfAbsent(poolId, id -> new PoolCounters(seqs.getOrDefault(id, 0L))).loadAccessRow(row);
+            }
+            // Pools chargés devenus vides (ou supprimés : ils seront rechargés vides à la demande)
+            for (Integer poolId : pools.keySet()) {
+                fresh.computeIfAbsent(poolId, id -> new PoolCounters(seqs.getOrDefault(id, 0L)));
+            }
+
+            int diverged = 0;
+            for (Map.Entry<Integer, PoolCounters> e : fresh.entrySet()) {
+                PoolCounters current = pools.get(e.getKey());
+                // Comparable seulement si aucune écriture n'a eu lieu pendant le recalcul
+                boolean quiet = writeSeq.getOrDefault(e.getKey(), 0L) == e.getValue().seq;
+                if (current != null && !current.stale && quiet
+                        && !current.snapshot().equals(e.getValue().snapshot())) {
+                    diverged++;
+                }
+                install(e.getKey(), e.getValue());
+            }
+            if (diverged > 0) {
+                drift.increment(diverged);
+                logger.warn("Statistiques de {} pool(s) corrigées par la réparation", diverged);
+            }
+        } catch (Exception e) {
+            logger.warn("Réparation des statistiques de pools en échec: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        repairExecutor.shutdownNow();
+    }
+
+    static String extensionOf(String name) {
+        if (name == null) return NO_EXTENSION;
+        int lastDot = name.lastIndexOf('.');
+        return lastDot > 0 ? name.substring(lastDot + 1).toLowerCase(Locale.ROOT) : NO_EXTENSION;
+    }
+
+    /**
+     * Vue figée des compteurs d'un pool. {@code topUploaders} : ids des plus gros contributeurs
+     * et leur nombre de fichiers, par ordre décroissant.
+     */
+    public record Snapshot(long filesCount,
+                           long membersCount,
+                           long inactiveMembersCount,
+                           Instant lastUploadAt,
+                           Map<String, Long> roleDistribution,
+                           Map<String, Long> filesPerDay,
+                           Map<String, Long> fileExtensions,
+                           Map<Integer, Long> uploads) {
+
+        public List<Map.Entry<Integer, Long>> topUploaders(int n) {
+            return uploads.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(n)
+                    .toList();
+        }
+    }
+
+    /** Compteurs d'un pool ; protégés par le moniteur de l'instance. */
+    private static final class PoolCounters {
+        private final long seq;
+        private volatile boolean stale;
+
+        private long files;
+        private Instant lastUpload;
+        private final Map<Integer, Long> uploads = new HashMap<>();
+        private final Map<LocalDate, Long> perDay = new TreeMap<>();
+        private final Map<String, Long> extensions = new HashMap<>();
+
+        private long members;
+        private long inactiveMembers;
+        private final Map<Integer, Long> memberAccesses = new HashMap<>();
+        private final Map<String, Long> roles = new HashMap<>();
+
+        PoolCounters(long seq) {
+            this.seq = seq;
+        }
+
+        // [poolId, uploaderId, jour, extension, nombre, max(createdAt)]
+        void loadFileRow(Object[] row) {
+            int uploaderId = (Integer) row[1];
+            LocalDate day = (LocalDate) row[2];
+            String ext = (String) row[3];
+            long count = (Long) row[4];
+            Instant max = (Instant) row[5];
+            files += count;
+            boolean wasInactive = !uploads.containsKey(uploaderId);
+            uploads.merge(uploaderId, count, Long::sum);
+            if (wasInactive) inactiveMembers -= memberAccesses.getOrDefault(uploaderId, 0L);
+            if (day != null) perDay.merge(day, count, Long::sum);
+            extensions.merge(ext, count, Long::sum);
+            if (max != null && (lastUpload == null || max.isAfter(lastUpload))) lastUpload = max;
+        }
+
+        // [poolId, userId, rôle, nombre]
+        void loadAccessRow(Object[] row) {
+            addAccess((Integer) row[1], (String) row[2], (Long) row[3]);
+        }
+
+        void addFile(int uploaderId, Instant createdAt, String name, int delta) {
+            long before = uploads.getOrDefault(uploaderId, 0L);
+            if (delta < 0 && (before == 0 || files == 0)) {
+                stale = true;
+                return;
+            }
+            files += delta;
+            decrementOrMerge(uploads, uploaderId, delta);
+            if (before == 0) inactiveMembers -= memberAccesses.getOrDefault(uploaderId, 0L);
+            if (before + delta == 0) inactiveMembers += memberAccesses.getOrDefault(uploaderId, 0L);
+            if (createdAt != null) decrementOrMerge(perDay, createdAt.atZone(ZoneOffset.UTC).toLocalDate(), delta);
+            decrementOrMerge(extensions, extensionOf(name), delta);
+
+            if (delta > 0) {
+                if (createdAt != null && (lastUpload == null || createdAt.isAfter(lastUpload))) lastUpload = createdAt;
+            } else if (files == 0) {
+                lastUpload = null;
+            } else if (createdAt == null || createdAt.equals(lastUpload)) {
+                // Le nouveau dernier dépôt n'est pas connu ici
+                stale = true;
+            }
+        }
+
+        void addAccess(int userId, String role, long delta) {
+            if (delta < 0 && memberAccesses.getOrDefault(userId, 0L) < -delta) {
+                stale = true;
+                return;
+            }
+            members += delta;
+            decrementOrMerge(memberAccesses, userId, delta);
+            if (!uploads.containsKey(userId)) inactiveMembers += delta;
+            if (role != null) decrementOrMerge(roles, role, delta);
+        }
+
+        private static <K> void decrementOrMerge(Map<K, Long> map, K key, long delta) {
+            long value = map.getOrDefault(key, 0L) + delta;
+            if (value > 0) map.put(key, value);
+            else map.remove(key);
+        }
+
+        synchronized Snapshot snapshot() {
+            Map<String, Long> days = new LinkedHashMap<>();
+            perDay.forEach((day, count) -> days.put(day.toString(), count));
+            return new Snapshot(files, members, inactiveMembers, lastUpload,
+                    Map.copyOf(roles), days, Map.copyOf(extensions), Map.copyOf(uploads));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.dto.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache partagé à courte durée de vie des principals authentifiés, indexé par email.
+ * Invalidé par {@link UserService} lors d'une modification ou suppression d'utilisateur.
+ * Au-delà de {@code MAX_ENTRIES}, le principal le moins récemment utilisé est oublié.
+ */
+@Service
+public class PrincipalCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    // Ordre d'accès (LRU), protégé par lui-même
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final long ttlNanos;
+
+    public PrincipalCache(@Value("${auth.principal-cache-ttl:60s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public UserPrincipal get(String email) {
+        synchronized (entries) {
+            Entry e = entries.get(email);
+            if (e == null) return null;
+            if (System.nanoTime() - e.expiresAt > 0) {
+                entries.remove(email);
+                return null;
+            }
+            return e.principal;
+        }
+    }
+
+    public void put(UserPrincipal principal) {
+        Entry entry = new Entry(principal, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(principal.getEmail(), entry);
+        }
+    }
+
+    public void invalidate(String email) {
+        if (email == null) return;
+        synchronized (entries) {
+            entries.remove(email);
+        }
+    }
+
+    public void invalidateUserId(int userId) {
+        synchronized (entries) {
+            entries.values().removeIf(e -> e.principal.getId() != null && e.principal.getId() == userId);
+        }
+    }
+
+    private record Entry(UserPrincipal principal, long expiresAt) {}
+}
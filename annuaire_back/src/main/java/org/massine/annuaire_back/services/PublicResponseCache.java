@@ -0,0 +1,141 @@
+package org.massine.annuaire_back.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des réponses des endpoints publics (anonymes). Chaque pool porte un numéro de version
+ * incrémenté à chaque modification du pool ou de ses fichiers ; le catalogue des pools publics
+ * a sa propre version. L'ETag (fort) est dérivé de la version, ce qui permet de répondre 304 à
+ * un {@code If-None-Match} sans interroger la base.
+ */
+@Service
+public class PublicResponseCache {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    // Distingue les ETags d'un démarrage à l'autre (les versions repartent de zéro)
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final ConcurrentHashMap<Integer, AtomicLong> poolVersions = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries;
+
+    private final Counter hits;
+    private final Counter notModified;
+    private final Counter misses;
+
+    public PublicResponseCache(MeterRegistry meterRegistry,
+                               @Value("${public-cache.max-entries:1000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("public.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.notModified = Counter.builder("public.cache.requests").tag("result", "not_modified").register(meterRegistry);
+        this.misses = Counter.builder("public.cache.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Le pool ou ses fichiers ont changé : ses réponses et le catalogue sont périmés.
+     */
+    public void poolChanged(int poolId) {
+        TransactionHooks.afterCommit(() -> {
+            poolVersions.computeIfAbsent(poolId, id -> new AtomicLong()).incrementAndGet();
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    /**
+     * Modification transverse (ex: nom d'un utilisateur affiché comme déposant) : tout est périmé.
+     */
+    public void invalidateAll() {
+        TransactionHooks.afterCommit(() -> {
+            poolVersions.values().forEach(AtomicLong::incrementAndGet);
+            catalogVersion.incrementAndGet();
+            synchronized (entries) {
+                entries.clear();
+            }
+        });
+    }
+
+    /**
+     * Réponse du catalogue des pools publics.
+     * @param key paramètres de la requête qui influent sur la réponse
+     */
+    public ResponseEntity<?> catalog(String key, String ifNoneMatch, Supplier<ResponseEntity<?>> compute) {
+        return serve("catalog|" + key, catalogVersion.get(), ifNoneMatch, compute);
+    }
+
+    /**
+     * Réponse propre à un pool.
+     * @param key endpoint et paramètres de la requête qui influent sur la réponse
+     */
+    public ResponseEntity<?> pool(int poolId, String key, String ifNoneMatch, Supplier<ResponseEntity<?>> compute) {
+        AtomicLong version = poolVersions.get(poolId);
+        return serve("pool-" + poolId + "|" + key, version == null ? 0 : version.get(), ifNoneMatch, compute);
+    }
+
+    private ResponseEntity<?> serve(String key, long version, String ifNoneMatch, Supplier<ResponseEntity<?>> compute) {
+        String etag = "\"" + epoch + "-" + Long.toHexString(version) + "-" + Integer.toHexString(key.hashCode()) + "\"";
+
+        if (matches(ifNoneMatch, etag)) {
+            notModified.increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CACHE_CONTROL)
+                    .build();
+        }
+
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.version == version) {
+            hits.increment();
+            return cached.response;
+        }
+
+        misses.increment();
+        ResponseEntity<?> computed = compute.get();
+        if (!computed.getStatusCode().is2xxSuccessful()) {
+            return computed;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(computed.getHeaders());
+        headers.setETag(etag);
+        headers.setCacheControl(CACHE_CONTROL);
+        ResponseEntity<?> response = new ResponseEntity<>(computed.getBody(), headers, computed.getStatusCode());
+        // Enregistré sous la version lue avant le calcul : une modification concurrente le périme
+        synchronized (entries) {
+            entries.put(key, new Entry(version, response));
+        }
+        return response;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private record Entry(long version, ResponseEntity<?> response) {}
+}
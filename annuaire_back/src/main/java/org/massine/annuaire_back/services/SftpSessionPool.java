@@ -0,0 +1,376 @@
+package org.massine.annuaire_back.services;
+
+import org.massine.annuaire_back.config.SftpConfig;
+import com.jcraft.jsch.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool borné de sessions SSH et de canaux SFTP.
+ * Chaque session porte au plus {@code poolChannelsPerSession} canaux, le nombre total de
+ * canaux empruntables est donc {@code poolMaxSessions * poolChannelsPerSession}.
+ * Un thread de maintenance envoie des keepalive, ferme les canaux/sessions inactifs
+ * et maintient {@code poolMinSessions} sessions ouvertes.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "sftp", matchIfMissing = true)
+public class SftpSessionPool implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SftpSessionPool.class);
+
+    private final SftpConfig sftpConfig;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledChannel> idleChannels = new LinkedBlockingDeque<>();
+    private final List<PooledSession> sessions = new ArrayList<>();
+    private final AtomicInteger activeChannels = new AtomicInteger();
+    private final ScheduledExecutorService maintenance;
+
+    public SftpSessionPool(SftpConfig sftpConfig, MeterRegistry meterRegistry) {
+        this.sftpConfig = sftpConfig;
+        this.permits = new Semaphore(sftpConfig.getPoolMaxSessions() * sftpConfig.getPoolChannelsPerSession(), true);
+
+        Gauge.builder("sftp.pool.active", activeChannels, AtomicInteger::get)
+                .description("Canaux SFTP actuellement empruntés")
+                .register(meterRegistry);
+        Gauge.builder("sftp.pool.idle", idleChannels, LinkedBlockingDeque::size)
+                .description("Canaux SFTP ouverts en attente de réutilisation")
+                .register(meterRegistry);
+        Gauge.builder("sftp.pool.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads en attente d'un canal SFTP")
+                .register(meterRegistry);
+        Gauge.builder("sftp.pool.sessions", this, SftpSessionPool::getSessionCount)
+                .description("Sessions SSH ouvertes")
+                .register(meterRegistry);
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sftp-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = sftpConfig.getPoolKeepaliveIntervalMs();
+        this.maintenance.scheduleWithFixedDelay(this::maintain, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte un canal SFTP connecté. Le bail doit être fermé (try-with-resources)
+     * pour rendre le canal au pool.
+     */
+    public Lease borrow() throws JSchException {
+        long timeout = sftpConfig.getPoolBorrowTimeoutMs();
+        try {
+            if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new JSchException("Aucun canal SFTP disponible après " + timeout + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSchException("Interrompu en attente d'un canal SFTP", e);
+        }
+
+        try {
+            PooledChannel pc;
+            while ((pc = idleChannels.pollFirst()) != null) {
+                if (pc.isUsable()) {
+                    activeChannels.incrementAndGet();
+                    return new Lease(pc);
+                }
+                discard(pc);
+            }
+            pc = openChannel();
+            activeChannels.incrementAndGet();
+            return new Lease(pc);
+        } catch (JSchException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getActiveCount() { return activeChannels.get(); }
+
+    public int getIdleCount() { return idleChannels.size(); }
+
+    public int getWaitingCount() { return permits.getQueueLength(); }
+
+    public int getSessionCount() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    private PooledChannel openChannel() throws JSchException {
+        PooledSession target = null;
+        boolean fresh = false;
+        synchronized (sessions) {
+            for (PooledSession s : sessions) {
+                if (!s.isDead() && s.channels < sftpConfig.getPoolChannelsPerSession()
+                        && (target == null || s.channels < target.channels)) {
+                    target = s;
+                }
+            }
+            if (target == null) {
+                if (sessions.size() >= sftpConfig.getPoolMaxSessions()) {
+                    throw new JSchException("Nombre maximal de sessions SFTP atteint");
+                }
+                target = new PooledSession();
+                sessions.add(target);
+                fresh = true;
+            }
+            target.channels++;
+        }
+
+        try {
+            if (fresh) {
+                target.connect(this::createSession);
+            }
+            ChannelSftp ch = (ChannelSftp) target.awaitSession().openChannel("sftp");
+            ch.connect();
+            return new PooledChannel(ch, target);
+        } catch (JSchException | RuntimeException e) {
+            releaseSlot(target);
+            throw e;
+        }
+    }
+
+    private Session createSession() throws JSchException {
+        JSch jsch = new JSch();
+        jsch.addIdentity(sftpConfig.getPrivateKeyPath());
+        Session session = jsch.getSession(
+                sftpConfig.getUsername(),
+                sftpConfig.getHost(),
+                sftpConfig.getPort()
+        );
+        session.setConfig("StrictHostKeyChecking", "no");
+        session.setConfig("compression.s2c", "none");
+        session.setConfig("compression.c2s", "none");
+        session.setServerAliveInterval((int) sftpConfig.getPoolKeepaliveIntervalMs());
+        session.setServerAliveCountMax(3);
+        session.connect();
+        return session;
+    }
+
+    private void release(PooledChannel pc, boolean broken) {
+        activeChannels.decrementAndGet();
+        try {
+            if (!broken && pc.isUsable()) {
+                pc.idleSince = System.currentTimeMillis();
+                idleChannels.offerFirst(pc);
+            } else {
+                discard(pc);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledChannel pc) {
+        try { pc.channel.disconnect(); } catch (Exception ignore) {}
+        releaseSlot(pc.owner);
+    }
+
+    private void releaseSlot(PooledSession s) {
+        synchronized (sessions) {
+            s.channels--;
+            s.lastUsed = System.currentTimeMillis();
+            if (s.isDead() && s.channels == 0) {
+                sessions.remove(s);
+                s.close();
+            }
+        }
+    }
+
+    /**
+     * Keepalive des sessions, éviction des canaux/sessions inactifs au-delà du minimum
+     * et préchauffage jusqu'à {@code poolMinSessions}.
+     */
+    void maintain() {
+        try {
+            long now = System.currentTimeMillis();
+            long idleTimeout = sftpConfig.getPoolIdleTimeoutMs();
+
+            // Canaux inactifs : les plus anciens sont en fin de deque
+            Iterator<PooledChannel> it = idleChannels.descendingIterator();
+            while (it.hasNext()) {
+                PooledChannel pc = it.next();
+                if ((!pc.isUsable() || now - pc.idleSince > idleTimeout) && idleChannels.remove(pc)) {
+                    discard(pc);
+                }
+            }
+
+            List<PooledSession> toClose = new ArrayList<>();
+            List<PooledSession> toProbe = new ArrayList<>();
+            synchronized (sessions) {
+                Iterator<PooledSession> sit = sessions.iterator();
+                while (sit.hasNext()) {
+                    PooledSession s = sit.next();
+                    if (s.session == null) continue; // connexion en cours
+                    boolean expendable = sessions.size() - toClose.size() > sftpConfig.getPoolMinSessions();
+                    if (s.channels == 0 && (s.isDead() || (expendable && now - s.lastUsed > idleTimeout))) {
+                        sit.remove();
+                        toClose.add(s);
+                    } else if (!s.isDead()) {
+                        toProbe.add(s);
+                    }
+                }
+            }
+            toClose.forEach(PooledSession::close);
+
+            for (PooledSession s : toProbe) {
+                try {
+                    s.session.sendKeepAliveMsg();
+                } catch (Exception e) {
+                    logger.warn("Keepalive SFTP en échec, session abandonnée: {}", e.getMessage());
+                    s.markDead();
+                }
+            }
+
+            warmUp();
+        } catch (Exception e) {
+            logger.warn("Maintenance du pool SFTP en échec: {}", e.getMessage());
+        }
+    }
+
+    private void warmUp() {
+        while (true) {
+            PooledSession s;
+            synchronized (sessions) {
+                if (sessions.size() >= Math.min(sftpConfig.getPoolMinSessions(), sftpConfig.getPoolMaxSessions())) {
+                    return;
+                }
+                s = new PooledSession();
+                sessions.add(s);
+            }
+            try {
+                s.connect(this::createSession);
+            } catch (Exception e) {
+                synchronized (sessions) {
+                    sessions.remove(s);
+                }
+                logger.warn("Préchauffage SFTP impossible: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        maintenance.shutdownNow();
+        PooledChannel pc;
+        while ((pc = idleChannels.pollFirst()) != null) {
+            try { pc.channel.disconnect(); } catch (Exception ignore) {}
+        }
+        synchronized (sessions) {
+            sessions.forEach(PooledSession::close);
+            sessions.clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SessionFactory {
+        Session create() throws JSchException;
+    }
+
+    private static final class PooledSession {
+        private final CompletableFuture<Session> ready = new CompletableFuture<>();
+        private volatile Session session;
+        private volatile boolean dead;
+        // protégé par le verrou sur sessions
+        private int channels;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        void connect(SessionFactory factory) throws JSchException {
+            try {
+                session = factory.create();
+                ready.complete(session);
+            } catch (JSchException | RuntimeException e) {
+                dead = true;
+                ready.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        Session awaitSession() throws JSchException {
+            try {
+                return ready.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JSchException("Interrompu pendant la connexion SFTP", e);
+            } catch (ExecutionException e) {
+                throw new JSchException("Connexion SFTP impossible: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        boolean isDead() {
+            return dead || (session != null && !session.isConnected());
+        }
+
+        void markDead() { dead = true; }
+
+        void close() {
+            dead = true;
+            if (session != null) {
+                try { session.disconnect(); } catch (Exception ignore) {}
+            }
+        }
+    }
+
+    private static final class PooledChannel {
+        private final ChannelSftp channel;
+        private final PooledSession owner;
+        private volatile long idleSince;
+
+        PooledChannel(ChannelSftp channel, PooledSession owner) {
+            this.channel = channel;
+            this.owner = owner;
+        }
+
+        boolean isUsable() {
+            return !owner.isDead() && channel.isConnected() && !channel.isClosed();
+        }
+    }
+
+    /**
+     * Bail sur un canal SFTP. {@link #close()} rend le canal au pool ;
+     * {@link #invalidate()} force sa fermeture (état protocolaire incertain).
+     */
+    public final class Lease implements AutoCloseable {
+        private final PooledChannel pooled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean broken;
+
+        private Lease(PooledChannel pooled) {
+            this.pooled = pooled;
+        }
+
+        public ChannelSftp channel() { return pooled.channel; }
+
+        public void invalidate() { broken = true; }
+
+        /**
+         * Invalide le canal si l'erreur n'est pas une simple réponse d'erreur du serveur SFTP
+         * (ex: fichier absent), car un transfert interrompu laisse le canal dans un état inconnu.
+         */
+        public void invalidateOn(Exception e) {
+            if (!(e instanceof SftpException) || e.getCause() != null) {
+                broken = true;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(pooled, broken);
+            }
+        }
+    }
+}
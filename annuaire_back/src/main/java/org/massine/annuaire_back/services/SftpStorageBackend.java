@@ -0,0 +1,282 @@
+package org.massine.annuaire_back.services;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stockage sur le serveur SFTP, au travers des canaux du {@link SftpSessionPool}.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "sftp", matchIfMissing = true)
+public class SftpStorageBackend implements StorageBackend {
+
+    private final SftpSessionPool sftpSessionPool;
+    private final Set<String> knownDirectories = ConcurrentHashMap.newKeySet();
+    private final Counter directoryRoundTripsSaved;
+
+    public SftpStorageBackend(SftpSessionPool sftpSessionPool, MeterRegistry meterRegistry) {
+        this.sftpSessionPool = sftpSessionPool;
+        this.directoryRoundTripsSaved = Counter.builder("sftp.directory.roundtrips.saved")
+                .description("Allers-retours SFTP évités grâce aux répertoires connus")
+                .register(meterRegistry);
+        Gauge.builder("sftp.directory.known", knownDirectories, Set::size)
+                .description("Répertoires distants connus pour exister")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void write(String path, InputStream data) throws IOException {
+        put(path, data, ChannelSftp.OVERWRITE);
+    }
+
+    @Override
+    public void append(String path, InputStream data) throws IOException {
+        put(path, data, ChannelSftp.APPEND);
+    }
+
+    private void put(String path, InputStream data, int mode) throws IOException {
+        String dir = parentOf(path);
+        try (InputStream in = data; SftpSessionPool.Lease lease = borrow()) {
+            ChannelSftp sftp = lease.channel();
+            try {
+                ensureDirectory(sftp, dir);
+                try {
+                    sftp.put(in, path, null, mode);
+                } catch (SftpException e) {
+                    // Répertoire mémorisé mais supprimé entre-temps : rien n'a été lu, on le recrée
+                    if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) throw e;
+                    knownDirectories.remove(dir);
+                    ensureDirectory(sftp, dir);
+                    sftp.put(in, path, null, mode);
+                }
+            } catch (SftpException | RuntimeException e) {
+                lease.invalidateOn(e);
+                throw io(e);
+            }
+        }
+    }
+
+    @Override
+    public StoredObject stat(String path) throws IOException {
+        try (SftpSessionPool.Lease lease = borrow()) {
+            try {
+                SftpATTRS attrs = lease.channel().stat(path);
+                return new StoredObject(attrs.getSize(), attrs.getMTime() * 1000L);
+            } catch (SftpException e) {
+                if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) return null;
+                lease.invalidateOn(e);
+                throw io(e);
+            }
+        }
+    }
+
+    /**
+     * Le canal reste emprunté jusqu'à la fermeture du flux.
+     */
+    @Override
+    public InputStream read(String path, long offset) throws IOException {
+        SftpSessionPool.Lease lease = borrow();
+        try {
+            return get(lease, path, offset, true);
+        } catch (IOException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Un seul canal emprunté pour toute la session, rendu à sa fermeture.
+     */
+    @Override
+    public ReadSession openReadSession() throws IOException {
+        SftpSessionPool.Lease lease = borrow();
+        return new ReadSession() {
+            @Override
+            public InputStream read(String path) throws IOException {
+                return get(lease, path, 0, false);
+            }
+
+            @Override
+            public void close() {
+                lease.close();
+            }
+        };
+    }
+
+    /**
+     * Ouvre le flux sur le canal emprunté ; une erreur autre que « fichier absent » invalide
+     * le canal. {@code releaseOnClose} rend le canal à la fermeture du flux.
+     */
+    private static InputStream get(SftpSessionPool.Lease lease, String path, long offset,
+                                   boolean releaseOnClose) throws IOException {
+        InputStream in;
+        try {
+            in = lease.channel().get(path, null, offset);
+        } catch (SftpException | RuntimeException e) {
+            if (e instanceof SftpException se && se.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw new NoSuchFileException(path);
+            }
+            lease.invalidateOn(e);
+            throw io(e);
+        }
+        return new FilterInputStream(in) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) return;
+                closed = true;
+                try {
+                    super.close();
+                } catch (IOException e) {
+                    lease.invalidate();
+                    throw e;
+                } finally {
+                    if (releaseOnClose) lease.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void move(String from, String to) throws IOException {
+        try (SftpSessionPool.Lease lease = borrow()) {
+            ChannelSftp sftp = lease.channel();
+            try {
+                try {
+                    sftp.rm(to);
+                } catch (SftpException ignore) {}
+                sftp.rename(from, to);
+            } catch (SftpException e) {
+                lease.invalidateOn(e);
+                throw io(e);
+            }
+        }
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+        try (SftpSessionPool.Lease lease = borrow()) {
+            try {
+                lease.channel().rm(path);
+            } catch (SftpException ignore) {}
+        }
+    }
+
+    /**
+     * Parcours en profondeur sur un seul canal emprunté pour toute la suppression.
+     */
+    @Override
+    public long deleteTree(String dir, Runnable onFileDeleted) throws IOException {
+        try (SftpSessionPool.Lease lease = borrow()) {
+            try {
+                return deleteTree(lease.channel(), dir, onFileDeleted);
+            } catch (SftpException e) {
+                if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) return 0;
+                lease.invalidateOn(e);
+                throw io(e);
+            } finally {
+                forgetDirectory(dir);
+            }
+        }
+    }
+
+    private long deleteTree(ChannelSftp sftp, String dir, Runnable onFileDeleted) throws SftpException {
+        long deleted = 0;
+        for (Object o : sftp.ls(dir)) {
+            ChannelSftp.LsEntry entry = (ChannelSftp.LsEntry) o;
+            String name = entry.getFilename();
+            if (".".equals(name) || "..".equals(name)) continue;
+            String path = dir + "/" + name;
+            if (entry.getAttrs().isDir()) {
+                deleted += deleteTree(sftp, path, onFileDeleted);
+            } else {
+                sftp.rm(path);
+                deleted++;
+                onFileDeleted.run();
+            }
+        }
+        sftp.rmdir(dir);
+        return deleted;
+    }
+
+    @Override
+    public void forgetDirectory(String dir) {
+        knownDirectories.removeIf(d -> d.equals(dir) || d.startsWith(dir + "/"));
+    }
+
+    /**
+     * Garantit l'existence d'un répertoire distant. Les répertoires déjà vus sont mémorisés :
+     * le cas courant ne coûte aucun aller-retour, sinon un seul {@code stat}, et les segments
+     * manquants sont créés un à un.
+     */
+    void ensureDirectory(ChannelSftp sftp, String absoluteDir) throws SftpException {
+        List<String> prefixes = new ArrayList<>();
+        String path = "";
+        for (String p : absoluteDir.split("/")) {
+            if (p == null || p.isBlank()) continue;
+            path += "/" + p;
+            prefixes.add(path);
+        }
+        if (prefixes.isEmpty()) return;
+        if (knownDirectories.contains(path)) {
+            // Ancien parcours : un cd par segment
+            directoryRoundTripsSaved.increment(prefixes.size());
+            return;
+        }
+
+        try {
+            if (sftp.stat(path).isDir()) {
+                knownDirectories.addAll(prefixes);
+                directoryRoundTripsSaved.increment(prefixes.size() - 1);
+                return;
+            }
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) throw e;
+        }
+
+        for (String prefix : prefixes) {
+            if (knownDirectories.contains(prefix)) continue;
+            try {
+                sftp.mkdir(prefix);
+            } catch (SftpException e) {
+                // Déjà présent (ou créé en parallèle) : échec seulement si ce n'est pas un répertoire
+                if (!sftp.stat(prefix).isDir()) throw e;
+            }
+            knownDirectories.add(prefix);
+        }
+    }
+
+    private SftpSessionPool.Lease borrow() throws IOException {
+        try {
+            return sftpSessionPool.borrow();
+        } catch (JSchException e) {
+            throw io(e);
+        }
+    }
+
+    private static String parentOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash > 0 ? path.substring(0, slash) : "/";
+    }
+
+    private static IOException io(Exception e) {
+        return e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+    }
+}
@@ -0,0 +1,85 @@
+package org.massine.annuaire_back.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stockage du contenu des fichiers. Les chemins sont absolus, de la forme
+ * {@code <base>/blobs/<xx>/<sha256>} (ou {@code <base>/pool<id>/user<id>/<nom>} pour les
+ * fichiers antérieurs à la déduplication) ; chaque implémentation les interprète (chemin SFTP,
+ * chemin sous une racine locale, clé en mémoire). L'implémentation active est choisie par
+ * {@code storage.backend}.
+ */
+public interface StorageBackend {
+
+    /** Taille et date de modification (ms) d'un fichier stocké. */
+    record StoredObject(long size, long lastModified) {}
+
+    /**
+     * Écrit (ou remplace) le fichier en créant les répertoires manquants. Le flux est fermé.
+     */
+    void write(String path, InputStream data) throws IOException;
+
+    /**
+     * Ajoute à la fin du fichier, créé au besoin avec ses répertoires. Le flux est fermé.
+     */
+    void append(String path, InputStream data) throws IOException;
+
+    /**
+     * @return la taille et la date du fichier, ou null s'il n'existe pas
+     */
+    StoredObject stat(String path) throws IOException;
+
+    /**
+     * Flux sur le contenu à partir de {@code offset}.
+     * @throws java.nio.file.NoSuchFileException si le fichier n'existe pas
+     */
+    InputStream read(String path, long offset) throws IOException;
+
+    /**
+     * Lectures successives d'une même opération (archive d'un pool) : une implémentation
+     * distante y garde une seule connexion jusqu'à {@link #close()}. Les flux se lisent
+     * l'un après l'autre, chacun fermé avant d'ouvrir le suivant.
+     */
+    interface ReadSession extends Closeable {
+        /**
+         * Flux sur tout le contenu du fichier.
+         * @throws java.nio.file.NoSuchFileException si le fichier n'existe pas
+         */
+        InputStream read(String path) throws IOException;
+
+        @Override
+        default void close() throws IOException {}
+    }
+
+    /**
+     * Ouvre une session de lecture ; par défaut chaque lecture passe par {@link #read}.
+     */
+    default ReadSession openReadSession() throws IOException {
+        return path -> read(path, 0);
+    }
+
+    /** Renomme en remplaçant la cible éventuelle. */
+    void move(String from, String to) throws IOException;
+
+    /** Supprime le fichier ; sans effet s'il n'existe pas. */
+    void delete(String path) throws IOException;
+
+    /**
+     * Supprime un répertoire et tout son contenu ; sans effet s'il n'existe pas.
+     * {@code onFileDeleted} est appelé après chaque fichier supprimé (suivi de progression).
+     * @return le nombre de fichiers supprimés
+     */
+    long deleteTree(String dir, Runnable onFileDeleted) throws IOException;
+
+    /**
+     * Vrai si le contenu est déjà local : le cache disque n'apporte alors rien.
+     */
+    default boolean isLocal() { return false; }
+
+    /**
+     * Oublie ce qui est mémorisé sur un répertoire supprimé (et ses sous-répertoires).
+     */
+    default void forgetDirectory(String dir) {}
+}
@@ -1,31 +1,50 @@
 package org.massine.annuaire_back.services;
 
+import org.massine.annuaire_back.dto.KeysetPage;
+import org.massine.annuaire_back.dto.UserPrincipal;
+import org.massine.annuaire_back.dto.UserResponseDTO;
 import org.massine.annuaire_back.models.User;
 import org.massine.annuaire_back.repositories.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.List;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    public UserService(UserRepository userRepository){
+    private final PrincipalCache principalCache;
+    private final PublicResponseCache publicResponseCache;
+    private final AccessIndex accessIndex;
+    public UserService(UserRepository userRepository, PrincipalCache principalCache, PublicResponseCache publicResponseCache,
+                       AccessIndex accessIndex){
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.publicResponseCache = publicResponseCache;
+        this.accessIndex = accessIndex;
     }
     public User findById(int id){
         return userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User with id : "+id+" not found"));
     }
-    public long getUsersCount() {
-        return userRepository.count();
+    public UserResponseDTO getUserSummary(int id){
+        return userRepository.findSummaryById(id).orElse(null);
+    }
+    public UserResponseDTO getUserSummaryByEmail(String email){
+        return userRepository.findSummaryByEmail(email).orElse(null);
+    }
+    public UserResponseDTO getUserSummaryByFirstName(String firstName){
+        return userRepository.findSummaryByFirstName(firstName).orElse(null);
     }
-    public User findByLastName(String lastName){
-        return userRepository.findByLastName(lastName)
-                .orElseThrow(() -> new RuntimeException("User with lastname : "+lastName+" not found"));
+    public UserResponseDTO getUserSummaryByLastName(String lastName){
+        return userRepository.findSummaryByLastName(lastName).orElse(null);
     }
-    public User findByFirstName(String firstName){
-        return userRepository.findByFirstName(firstName)
-                .orElseThrow(() -> new RuntimeException("User with firstname : "+firstName+" not found"));
+    public List<UserResponseDTO> getUserSummariesByRole(String role){
+        return userRepository.findSummariesByRole(role);
+    }
+    public long getUsersCount() {
+        return userRepository.count();
     }
     public User findByEmail(String email){
         return userRepository.findByEmail(email)
@@ -36,13 +55,42 @@ public class UserService {
     public User findByEmailSafe(String email){
         return userRepository.findByEmail(email).orElse(null);
     }
-    
-    public List<User> findByRole(String role){
-        return userRepository.findByRole(role);
+
+    /**
+     * Principal de l'utilisateur authentifié : cache partagé, sinon chargement en base.
+     */
+    public UserPrincipal loadPrincipal(String email){
+        UserPrincipal principal = principalCache.get(email);
+        if (principal != null) return principal;
+        User user = findByEmailSafe(email);
+        if (user == null) return null;
+        principal = new UserPrincipal(user);
+        principalCache.put(principal);
+        return principal;
     }
+
+    /**
+     * Utilisateur courant (id, email, rôle) pour les contrôles d'accès des contrôleurs.
+     * Réutilise le principal posé sur la requête par le filtre JWT, sans requête SQL.
+     */
+    public User findAuthenticated(String email){
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object attr = attributes.getAttribute(UserPrincipal.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (attr instanceof UserPrincipal principal && principal.getEmail().equals(email)) {
+                return principal.toUser();
+            }
+        }
+        UserPrincipal principal = loadPrincipal(email);
+        return principal != null ? principal.toUser() : null;
+    }
+    
     public List<User> getAllUser(){
         return userRepository.findAll();
     }
+    public KeysetPage<UserResponseDTO> getUserSummaries(String sort, boolean descending, String after, int limit){
+        return userRepository.findSummaries(sort, descending, after, limit);
+    }
 
     public User createUser(User user){
         return userRepository.save(user);
@@ -63,11 +111,20 @@ public class UserService {
         if(user.getRole() != null){
             modifiedUser.setRole(user.getRole());
         }
-        return userRepository.save(modifiedUser);
+        User saved = userRepository.save(modifiedUser);
+        // Après validation : une requête concurrente ne peut plus remettre en cache l'ancien rôle
+        TransactionHooks.afterCommit(() -> principalCache.invalidateUserId(id));
+        publicResponseCache.invalidateAll();
+        return saved;
     }
 
     public void deleteUser(int id){
         userRepository.deleteById(id);
+        TransactionHooks.afterCommit(() -> {
+            principalCache.invalidateUserId(id);
+            accessIndex.userChanged(id);
+        });
+        publicResponseCache.invalidateAll();
     }
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
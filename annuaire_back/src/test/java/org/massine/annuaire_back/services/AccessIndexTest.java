@@ -0,0 +1,151 @@
+package org.massine.annuaire_back.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.massine.annuaire_back.repositories.AccessRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessIndexTest {
+
+    private static final int USER = 7;
+
+    private AccessRepository accessRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private AccessIndex index;
+
+    @BeforeEach
+    void setUp() {
+        accessRepository = mock(AccessRepository.class);
+        index = newIndex(Duration.ofMinutes(10), 100);
+    }
+
+    /** Registre neuf à chaque index : les jauges mesurent bien celui-ci. */
+    private AccessIndex newIndex(Duration ttl, int maxUsers) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new AccessIndex(accessRepository, meterRegistry, ttl, maxUsers);
+    }
+
+    /** Lignes (poolId, rôle) telles que renvoyées par findPoolRolesByUserId. */
+    private static List<Object[]> rows(Object... poolsAndRoles) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < poolsAndRoles.length; i += 2) {
+            rows.add(new Object[]{poolsAndRoles[i], poolsAndRoles[i + 1]});
+        }
+        return rows;
+    }
+
+    @Test
+    void loadsUserOnceThenAnswersFromIndex() {
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(3, "member", 1, "admin", 2, "owner"));
+
+        assertEquals(AccessIndex.MEMBER, index.roleOf(USER, 3));
+        assertTrue(index.canModify(USER, 1));
+        assertTrue(index.isOwner(USER, 2));
+        assertFalse(index.hasAccess(USER, 4));
+        assertFalse(index.canModify(USER, 3));
+
+        verify(accessRepository, times(1)).findPoolRolesByUserId(USER);
+        assertEquals(1, meterRegistry.get("access.index").tag("result", "miss").counter().count());
+        assertEquals(4, meterRegistry.get("access.index").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void duplicateAccessKeepsHighestRole() {
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(5, "member", 5, "admin"));
+
+        assertEquals(AccessIndex.ADMIN, index.roleOf(USER, 5));
+    }
+
+    @Test
+    void grantAddsPoolWithoutReload() {
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(1, "member"));
+        assertFalse(index.hasAccess(USER, 9));
+
+        index.accessGranted(USER, 9, "admin");
+
+        assertTrue(index.canModify(USER, 9));
+        assertTrue(index.hasAccess(USER, 1));
+        verify(accessRepository, times(1)).findPoolRolesByUserId(USER);
+    }
+
+    @Test
+    void grantNeverLowersExistingRole() {
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(1, "owner"));
+        index.roleOf(USER, 1);
+
+        index.accessGranted(USER, 1, "member");
+
+        assertTrue(index.isOwner(USER, 1));
+    }
+
+    @Test
+    void grantForUserNotYetLoadedIsReadFromDatabase() {
+        index.accessGranted(USER, 9, "member");
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(9, "member"));
+
+        assertTrue(index.hasAccess(USER, 9));
+        verify(accessRepository, times(1)).findPoolRolesByUserId(USER);
+    }
+
+    @Test
+    void revokeReloadsUser() {
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(1, "member", 2, "admin"));
+        assertTrue(index.hasAccess(USER, 2));
+
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(1, "member"));
+        index.userChanged(USER);
+
+        assertFalse(index.hasAccess(USER, 2));
+        assertTrue(index.hasAccess(USER, 1));
+        verify(accessRepository, times(2)).findPoolRolesByUserId(USER);
+    }
+
+    @Test
+    void deletedPoolIsRemovedFromLoadedUsers() {
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(1, "member", 2, "owner"));
+        assertTrue(index.isOwner(USER, 2));
+
+        index.poolDeleted(2);
+
+        assertFalse(index.hasAccess(USER, 2));
+        assertTrue(index.hasAccess(USER, 1));
+        verify(accessRepository, times(1)).findPoolRolesByUserId(USER);
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        index = newIndex(Duration.ZERO, 100);
+        when(accessRepository.findPoolRolesByUserId(USER)).thenReturn(rows(1, "member"));
+
+        index.hasAccess(USER, 1);
+        index.hasAccess(USER, 1);
+
+        verify(accessRepository, times(2)).findPoolRolesByUserId(USER);
+    }
+
+    @Test
+    void evictsBeyondMaxUsers() {
+        index = newIndex(Duration.ofMinutes(10), 10);
+        when(accessRepository.findPoolRolesByUserId(anyInt())).thenReturn(rows(1, "member"));
+
+        for (int user = 1; user <= 50; user++) {
+            assertTrue(index.hasAccess(user, 1));
+        }
+
+        double users = meterRegistry.get("access.index.users").gauge().value();
+        assertTrue(users > 0 && users <= 10, "utilisateurs indexés : " + users);
+    }
+}
@@ -0,0 +1,89 @@
+package org.massine.annuaire_back.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids de pools accessibles : {@link IntSet} construit depuis le {@code int[]} de la requête,
+ * contre l'ancien {@code Set<Integer>} et une simple {@code List<Integer>} (construction puis
+ * tests d'appartenance). Lancement : {@code main} depuis le classpath de test, avec le profileur
+ * GC ({@code gc.alloc.rate.norm} = octets alloués par opération).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntSetBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int pools;
+
+    private int[] ids;
+    private int[] probes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ids = random.ints(pools, 1, pools * 4).toArray();
+        probes = random.ints(1_000, 1, pools * 4).toArray();
+    }
+
+    @Benchmark
+    public void intSet(Blackhole bh) {
+        IntSet set = IntSet.of(ids);
+        for (int p : probes) {
+            bh.consume(set.contains(p));
+        }
+    }
+
+    @Benchmark
+    public void boxedSet(Blackhole bh) {
+        Set<Integer> set = new HashSet<>();
+        for (int id : ids) {
+            set.add(id);
+        }
+        for (int p : probes) {
+            bh.consume(set.contains(p));
+        }
+    }
+
+    @Benchmark
+    public void boxedList(Blackhole bh) {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        for (int p : probes) {
+            bh.consume(list.contains(p));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IntSetBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
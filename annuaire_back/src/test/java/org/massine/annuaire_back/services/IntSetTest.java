@@ -0,0 +1,95 @@
+package org.massine.annuaire_back.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntSetTest {
+
+    @Test
+    void emptySetContainsNothing() {
+        IntSet set = new IntSet();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(1));
+        assertEquals(0, set.toArray().length);
+    }
+
+    @Test
+    void zeroIsTrackedApartFromEmptySlots() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+        assertArrayEquals(new int[]{0}, set.toArray());
+    }
+
+    @Test
+    void negativeAndExtremeValues() {
+        IntSet set = IntSet.of(new int[]{-1, Integer.MIN_VALUE, Integer.MAX_VALUE, -42, 0});
+        assertEquals(5, set.size());
+        for (int v : new int[]{-1, Integer.MIN_VALUE, Integer.MAX_VALUE, -42, 0}) {
+            assertTrue(set.contains(v), "contient " + v);
+        }
+        assertFalse(set.contains(1));
+        assertFalse(set.contains(-2));
+        assertEquals("[-2147483648, -42, -1, 0, 2147483647]", set.toString());
+    }
+
+    @Test
+    void duplicatesAreIgnored() {
+        IntSet set = IntSet.of(new int[]{3, 3, 7, 3, 7});
+        assertEquals(2, set.size());
+        assertFalse(set.add(7));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void collidingValuesAreAllFound() {
+        // Capacité 8 : valeurs qui tombent toutes dans la même case
+        IntSet set = new IntSet(4);
+        List<Integer> colliding = new ArrayList<>();
+        int bucket = IntSet.mix(1) & 7;
+        for (int v = 1; colliding.size() < 3; v++) {
+            if ((IntSet.mix(v) & 7) == bucket) colliding.add(v);
+        }
+        colliding.forEach(set::add);
+
+        for (int v : colliding) {
+            assertTrue(set.contains(v), "contient " + v);
+        }
+        for (int v = 1; v < 1_000; v++) {
+            assertEquals(colliding.contains(v), set.contains(v), "valeur " + v);
+        }
+    }
+
+    @Test
+    void growsWellPastInitialCapacity() {
+        IntSet set = new IntSet(1);
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int v = random.nextInt(200_000) - 100_000;
+            assertEquals(expected.add(v), set.add(v), "ajout de " + v);
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (int v = -100_000; v < 100_000; v++) {
+            assertEquals(expected.contains(v), set.contains(v), "valeur " + v);
+        }
+        int[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), values);
+    }
+}
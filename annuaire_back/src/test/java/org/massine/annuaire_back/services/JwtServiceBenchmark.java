@@ -0,0 +1,88 @@
+package org.massine.annuaire_back.services;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de la vérification d'un token par requête : analyse + HMAC à chaque fois (comportement
+ * d'avant le cache) contre {@link JwtService#validate(String)} sur des tokens déjà vus.
+ * {@code tokens} au-delà de 10 000 fait tourner l'éviction LRU.
+ * Lancement : {@code main} depuis le classpath de test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "ZmFrZS1zZWNyZXQtZm9yLWJlbmNobWFya3Mtb25seS0wMTIzNDU2Nzg5YWJjZGVm";
+
+    @Param({"100", "20000"})
+    public int tokens;
+
+    private JwtService jwtService;
+    private JwtParser parser;
+    private String[] issued;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "SECRET_KEY", SECRET);
+        jwtService.init();
+        parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET))).build();
+
+        issued = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            issued[i] = jwtService.generateToken(i, "user" + i + "@example.org", "USER");
+        }
+    }
+
+    private String anyToken() {
+        return issued[ThreadLocalRandom.current().nextInt(issued.length)];
+    }
+
+    @Benchmark
+    public void parseEveryTime(Blackhole bh) {
+        bh.consume(parser.parseClaimsJws(anyToken()).getBody());
+    }
+
+    @Benchmark
+    public void validateCached(Blackhole bh) {
+        bh.consume(jwtService.validate(anyToken()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void validateCachedContended(Blackhole bh) {
+        bh.consume(jwtService.validate(anyToken()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}